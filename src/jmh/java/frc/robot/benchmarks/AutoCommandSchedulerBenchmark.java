@@ -0,0 +1,80 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.libraries.AutoFramework.AutoCommandBase;
+import frc.robot.libraries.AutoFramework.AutoCommandScheduler;
+
+/**
+ * Cost of one AutoCommandScheduler polling pass, for autos made of
+ * one second time-window steps like the RobotContainer example.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AutoCommandSchedulerBenchmark {
+
+    @Param({"4", "16", "64"})
+    public int commandCount;
+
+    // Lambda conditions get polled every pass, time windows go on the timeline
+    @Param({"false", "true"})
+    public boolean timeWindows;
+
+    AutoCommandScheduler scheduler;
+
+    /**
+     * Drives a fake motor while scheduled
+     */
+    static class FakeDriveCommand extends AutoCommandBase {
+        final FakeMotorGroup motor = new FakeMotorGroup(1);
+
+        @Override
+        public void execute() {
+            motor.set(0, 0.5);
+            motor.step();
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            motor.set(0, 0);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        scheduler = new AutoCommandScheduler();
+
+        AutoCommandBase[] commands = new AutoCommandBase[commandCount];
+
+        for (int i = 0; i < commandCount; i++) {
+            // Spread the steps over the 15 second auto
+            double start = 15.0 * i / commandCount;
+            double end = start + 1;
+
+            commands[i] = new FakeDriveCommand().declareCondition(
+                timeWindows
+                    ? scheduler.autoTimeWindow(start, end)
+                    : () -> scheduler.autoTimePassed(start) && !scheduler.autoTimePassed(end)
+            );
+        }
+
+        scheduler.setCommands(commands);
+        scheduler.setDefaultCommand(new FakeDriveCommand());
+        scheduler.initialize();
+    }
+
+    @Benchmark
+    public void pollCommands() {
+        scheduler.pollCommands();
+    }
+}
@@ -0,0 +1,58 @@
+package frc.robot.benchmarks;
+
+/**
+ * Stands in for a group of CANSparkMax motors and their encoders, so the
+ * macro and PID hot paths can be benchmarked without CAN hardware. Each
+ * motor's position follows its last output, like a very light mechanism.
+ */
+public class FakeMotorGroup {
+
+    private final double[] positions;
+    private final double[] outputs;
+
+    public FakeMotorGroup(int MotorCount) {
+        positions = new double[MotorCount];
+        outputs = new double[MotorCount];
+
+        for (int i = 0; i < MotorCount; i++) {
+            positions[i] = i * 0.25;
+            outputs[i] = 0.1 * (i + 1);
+        }
+    }
+
+    public int getMotorCount() {
+        return positions.length;
+    }
+
+    /**
+     * Equivalent of {@code canSparkMax.getEncoder().getPosition()}
+     */
+    public double getPosition(int motor) {
+        return positions[motor];
+    }
+
+    /**
+     * Equivalent of {@code canSparkMax.set(output)}
+     */
+    public void set(int motor, double output) {
+        outputs[motor] = output;
+    }
+
+    /**
+     * Advances every motor by one 20ms robot loop
+     */
+    public void step() {
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] += outputs[i] * 0.02;
+        }
+    }
+
+    /**
+     * Copies every position into the array, like one recorded frame
+     */
+    public void readPositions(double[] out) {
+        for (int i = 0; i < positions.length; i++) {
+            out[i] = positions[i];
+        }
+    }
+}
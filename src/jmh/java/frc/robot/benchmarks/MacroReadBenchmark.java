@@ -0,0 +1,210 @@
+package frc.robot.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.libraries.MacroCANSparkMaxGroup;
+import frc.robot.libraries.SimulatedClock;
+import frc.robot.libraries.MacroFramework.InterpolationMode;
+import frc.robot.libraries.MacroFramework.MacroFileConverter;
+import frc.robot.libraries.MacroFramework.MacroFormat;
+import frc.robot.libraries.MacroFramework.MacroPlayback;
+import frc.robot.libraries.MacroFramework.MacroTextWriter;
+import frc.robot.libraries.MacroFramework.MacroTrack;
+import frc.robot.libraries.MacroFramework.MappedMacroFile;
+import frc.robot.libraries.MacroFramework.SimulatedMacroMotor;
+
+/**
+ * Per-tick cost of MacroCANSparkMaxGroup.readFrame() for a 15 second
+ * macro at 50hz. Each operation advances the read time by one 20ms
+ * loop, wrapping back to the start at the end of the macro.
+ * 
+ * <p>The group benchmarks run the real readFrame over
+ * SimulatedMacroMotors on a SimulatedClock, so they include each
+ * motor's simulation catching up to the clock as well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MacroReadBenchmark {
+
+    static final int kFrames = 750;
+
+    @Param({"1", "4", "8"})
+    public int motorCount;
+
+    File directory, textFile, binaryFile;
+
+    double[] targets;
+
+    SimulatedClock clock;
+    MacroCANSparkMaxGroup group;
+
+    MacroTrack track;
+    MappedMacroFile mapped;
+    MacroPlayback linear, cubic, mappedLinear;
+
+    Scanner scanner;
+    double lastReadTimer;
+
+    double time;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("macro-read-bench").toFile();
+        textFile = new File(directory, "bench.txt");
+        binaryFile = new File(directory, "bench.macro");
+
+        FakeMotorGroup recorded = new FakeMotorGroup(motorCount);
+        double[] frame = new double[motorCount];
+
+        try (MacroTextWriter writer = new MacroTextWriter(textFile, motorCount)) {
+            for (int f = 0; f < kFrames; f++) {
+                recorded.step();
+                recorded.readPositions(frame);
+                writer.writeFrame(f * 0.02, frame);
+            }
+        }
+
+        MacroFileConverter.convert(textFile, binaryFile, 50);
+
+        track = MacroTrack.load(binaryFile);
+        mapped = MappedMacroFile.open(binaryFile);
+
+        linear = new MacroPlayback(track, InterpolationMode.LINEAR);
+        cubic = new MacroPlayback(track, InterpolationMode.CUBIC);
+        mappedLinear = new MacroPlayback(mapped, InterpolationMode.LINEAR);
+
+        targets = new double[motorCount];
+
+        // Name is per motor count, Shuffleboard won't take the same tab entries twice
+        clock = new SimulatedClock();
+        group = readingGroup("ReadBench" + motorCount);
+
+        openScanner();
+    }
+
+    // Plays back the benchmark macro from the group's own file, kept in the temp directory
+    private MacroCANSparkMaxGroup readingGroup(String Name) throws IOException {
+        SimulatedMacroMotor[] simulated = new SimulatedMacroMotor[motorCount];
+        for (int i = 0; i < motorCount; i++) {
+            simulated[i] = new SimulatedMacroMotor(DCMotor.getNEO(1), 10, 0.05, clock);
+        }
+
+        MacroCANSparkMaxGroup readGroup = new MacroCANSparkMaxGroup(Name, directory, simulated)
+            .setFormat(MacroFormat.BINARY)
+            .setClock(clock);
+
+        Files.copy(binaryFile.toPath(), readGroup.getMacroFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+        readGroup.beginRead();
+
+        return readGroup;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scanner.close();
+        mapped.close();
+
+        group.endRead();
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private void openScanner() throws FileNotFoundException {
+        if (scanner != null) {
+            scanner.close();
+        }
+
+        scanner = new Scanner(textFile);
+        scanner.useDelimiter(",|\\n");
+        lastReadTimer = scanner.nextDouble();
+    }
+
+    private double nextTime() {
+        time += 0.02;
+        if (time > kFrames * 0.02) {
+            time = 0;
+        }
+        return time;
+    }
+
+    /**
+     * The original Scanner based readFrame, without the motor output
+     */
+    @Benchmark
+    public void scannerReadFrame(Blackhole blackhole) throws FileNotFoundException {
+        double now = nextTime();
+
+        if (now == 0 || !scanner.hasNext()) {
+            // Reopen once per pass through the macro, like beginRead
+            openScanner();
+        }
+
+        if (now > lastReadTimer) {
+            for (int i = 0; i < motorCount; i++) {
+                if (scanner.hasNext()) {
+                    targets[i] = scanner.nextDouble();
+                }
+            }
+
+            if (scanner.hasNext()) {
+                lastReadTimer = scanner.nextDouble();
+            }
+        }
+
+        blackhole.consume(targets);
+    }
+
+    @Benchmark
+    public boolean linearSample() {
+        return linear.sample(nextTime(), targets);
+    }
+
+    @Benchmark
+    public boolean cubicSample() {
+        return cubic.sample(nextTime(), targets);
+    }
+
+    @Benchmark
+    public boolean mappedLinearSample() {
+        return mappedLinear.sample(nextTime(), targets);
+    }
+
+    /**
+     * MacroCANSparkMaxGroup.readFrame(), with its controller per motor
+     */
+    @Benchmark
+    public void groupReadFrame() throws IOException {
+        clock.advance(0.02);
+
+        // Once per pass through the macro
+        if (group.isReadFinished()) {
+            group.endRead();
+            group.beginRead();
+        }
+
+        group.readFrame();
+    }
+}
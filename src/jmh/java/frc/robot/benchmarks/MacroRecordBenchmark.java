@@ -0,0 +1,173 @@
+package frc.robot.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.libraries.MacroCANSparkMaxGroup;
+import frc.robot.libraries.SimulatedClock;
+import frc.robot.libraries.MacroFramework.AsyncMacroRecorder;
+import frc.robot.libraries.MacroFramework.MacroBinaryWriter;
+import frc.robot.libraries.MacroFramework.MacroCompressedCodec;
+import frc.robot.libraries.MacroFramework.MacroCompressedWriter;
+import frc.robot.libraries.MacroFramework.MacroFormat;
+import frc.robot.libraries.MacroFramework.MacroTextWriter;
+import frc.robot.libraries.MacroFramework.SimulatedMacroMotor;
+
+/**
+ * Per-frame cost of MacroCANSparkMaxGroup.recordFrame() for each way of
+ * recording. Writers are recreated every iteration so the files don't
+ * grow without bound.
+ * 
+ * <p>The writer benchmarks compare the formats on their own. The group
+ * benchmarks run the real recordFrame over SimulatedMacroMotors on a
+ * SimulatedClock, including the motor snapshot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MacroRecordBenchmark {
+
+    @Param({"1", "4", "8"})
+    public int motorCount;
+
+    File directory;
+    FakeMotorGroup motors;
+    double[] frame;
+    double time;
+
+    MacroTextWriter textWriter;
+    MacroBinaryWriter binaryWriter;
+    MacroCompressedWriter compressedWriter;
+    AsyncMacroRecorder asyncRecorder;
+
+    SimulatedClock clock;
+    MacroCANSparkMaxGroup group, asyncGroup;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        directory = Files.createTempDirectory("macro-record-bench").toFile();
+        motors = new FakeMotorGroup(motorCount);
+        frame = new double[motorCount];
+
+        clock = new SimulatedClock();
+        SimulatedMacroMotor[] simulated = new SimulatedMacroMotor[motorCount];
+        for (int i = 0; i < motorCount; i++) {
+            simulated[i] = new SimulatedMacroMotor(DCMotor.getNEO(1), 10, 0.05, clock);
+            simulated[i].set(0.1 * (i + 1));
+        }
+
+        // Names are per motor count, Shuffleboard won't take the same tab entries twice.
+        // Both groups record into the temp directory, not the deploy directory.
+        group = new MacroCANSparkMaxGroup("RecordBench" + motorCount, directory, simulated)
+            .setFormat(MacroFormat.BINARY)
+            .setClock(clock);
+        asyncGroup = new MacroCANSparkMaxGroup("RecordBenchAsync" + motorCount, directory, simulated)
+            .setFormat(MacroFormat.BINARY)
+            .setAsyncRecord(true)
+            .setClock(clock);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration() throws IOException {
+        time = 0;
+
+        textWriter = new MacroTextWriter(new File(directory, "bench.txt"), motorCount);
+        binaryWriter = new MacroBinaryWriter(new File(directory, "bench.macro"), motorCount, 50);
+        compressedWriter = new MacroCompressedWriter(new File(directory, "bench.macroz"), motorCount, 50,
+            MacroCompressedCodec.kDefaultPositionQuantum);
+        asyncRecorder = new AsyncMacroRecorder(
+            new MacroBinaryWriter(new File(directory, "async.macro"), motorCount, 50), motorCount, 512);
+
+        group.beginRecord();
+        asyncGroup.beginRecord();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration() throws IOException {
+        textWriter.close();
+        binaryWriter.close();
+        compressedWriter.close();
+        asyncRecorder.close(1);
+
+        group.endRecord();
+        asyncGroup.endRecord();
+
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        directory.delete();
+    }
+
+    private void nextFrame() {
+        motors.step();
+        motors.readPositions(frame);
+        time += 0.02;
+    }
+
+    /**
+     * The original string concatenation path
+     */
+    @Benchmark
+    public void textRecordFrame() throws IOException {
+        nextFrame();
+        textWriter.writeFrame(time, frame);
+    }
+
+    @Benchmark
+    public void binaryRecordFrame() throws IOException {
+        nextFrame();
+        binaryWriter.writeFrame(time, frame);
+    }
+
+    @Benchmark
+    public void compressedRecordFrame() throws IOException {
+        nextFrame();
+        compressedWriter.writeFrame(time, frame);
+    }
+
+    /**
+     * Cost seen by the robot thread only; the write happens on the
+     * recorder's own thread, and frames are dropped once it falls behind.
+     */
+    @Benchmark
+    public boolean asyncRecordFrame() {
+        nextFrame();
+        return asyncRecorder.record(time, frame);
+    }
+
+    /**
+     * MacroCANSparkMaxGroup.recordFrame() in the binary format
+     */
+    @Benchmark
+    public void groupRecordFrame() throws IOException {
+        clock.advance(0.02);
+        group.recordFrame();
+    }
+
+    /**
+     * MacroCANSparkMaxGroup.recordFrame() with setAsyncRecord(true)
+     */
+    @Benchmark
+    public void groupAsyncRecordFrame() throws IOException {
+        clock.advance(0.02);
+        asyncGroup.recordFrame();
+    }
+}
@@ -0,0 +1,93 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.libraries.PIDBank;
+import frc.robot.libraries.TimedPIDController;
+
+/**
+ * One control update of a whole motor group; an array of
+ * TimedPIDController objects walked in three loops (setInput, setTarget,
+ * calculate and set) against a single PIDBank pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PIDBankBenchmark {
+
+    @Param({"2", "6", "8", "32"})
+    public int motorCount;
+
+    FakeMotorGroup motors;
+    TimedPIDController[] controllers;
+    PIDBank bank;
+    double[] targets;
+
+    @Setup
+    public void setup() {
+        motors = new FakeMotorGroup(motorCount);
+        targets = new double[motorCount];
+
+        controllers = new TimedPIDController[motorCount];
+        for (int i = 0; i < motorCount; i++) {
+            controllers[i] = new TimedPIDController(0.03, 0.001, 0.0005, 0);
+            controllers[i].setTolerance(0.01);
+        }
+
+        bank = new PIDBank(motorCount, 0.03, 0.001, 0.0005, 0);
+        bank.setTolerance(0.01);
+    }
+
+    private void advanceTargets() {
+        for (int i = 0; i < motorCount; i++) {
+            targets[i] += 0.001 * (i + 1);
+        }
+    }
+
+    @Benchmark
+    public void controllerArray() {
+        advanceTargets();
+
+        for (int i = 0; i < motorCount; i++) {
+            controllers[i].setInput(motors.getPosition(i));
+        }
+
+        for (int i = 0; i < motorCount; i++) {
+            controllers[i].setTarget(targets[i]);
+        }
+
+        for (int i = 0; i < motorCount; i++) {
+            motors.set(i, controllers[i].calculate(1, -1, 0.02));
+        }
+
+        motors.step();
+    }
+
+    @Benchmark
+    public void pidBank() {
+        advanceTargets();
+
+        for (int i = 0; i < motorCount; i++) {
+            bank.input[i] = motors.getPosition(i);
+        }
+
+        System.arraycopy(targets, 0, bank.target, 0, motorCount);
+
+        bank.calculate(1, -1, 0.02);
+
+        for (int i = 0; i < motorCount; i++) {
+            motors.set(i, bank.output[i]);
+        }
+
+        motors.step();
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.libraries.PIDController;
+import frc.robot.libraries.TimedPIDController;
+
+/**
+ * Cost of a single PIDController update against a fake mechanism
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PIDControllerBenchmark {
+
+    FakeMotorGroup motor;
+    PIDController controller;
+    TimedPIDController timedController;
+    double target;
+
+    final double[] gains = new double[4];
+
+    @Setup
+    public void setup() {
+        motor = new FakeMotorGroup(1);
+        controller = new PIDController(0.03, 0.001, 0.0005, 0);
+        controller.setTolerance(0.01);
+
+        timedController = new TimedPIDController(0.03, 0.001, 0.0005, 0);
+        timedController.setTolerance(0.01);
+        timedController.setDerivativeFilter(0.01);
+    }
+
+    @Benchmark
+    public double calculate() {
+        // Slowly moving target, like macro playback
+        target += 0.001;
+
+        controller.setTarget(target);
+        controller.setInput(motor.getPosition(0));
+
+        double output = controller.calculate(1, -1);
+
+        motor.set(0, output);
+        motor.step();
+        return output;
+    }
+
+    @Benchmark
+    public double timedCalculate() {
+        target += 0.001;
+
+        timedController.setTarget(target);
+        timedController.setInput(motor.getPosition(0));
+
+        // Measures its own timestep
+        double output = timedController.calculate(1, -1);
+
+        motor.set(0, output);
+        motor.step();
+        return output;
+    }
+
+    @Benchmark
+    public double timedCalculateFixedDt() {
+        target += 0.001;
+
+        timedController.setTarget(target);
+        timedController.setInput(motor.getPosition(0));
+
+        double output = timedController.calculate(1, -1, 0.02);
+
+        motor.set(0, output);
+        motor.step();
+        return output;
+    }
+
+    @Benchmark
+    public double[] getPID() {
+        return controller.getPID();
+    }
+
+    @Benchmark
+    public double[] getPIDInto() {
+        return controller.getPID(gains);
+    }
+}
@@ -4,9 +4,11 @@
 
 package frc.robot;
 
+import edu.wpi.first.wpilibj.Filesystem;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.libraries.MacroFramework.MacroCache;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -25,6 +27,9 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotInit() {
+    // Load every deployed macro now, so starting an auto never has to read files.
+    MacroCache.getInstance().warm(Filesystem.getDeployDirectory());
+
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
@@ -48,7 +53,10 @@ public class Robot extends TimedRobot {
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
-  public void disabledInit() {}
+  public void disabledInit() {
+    // Pick up macros that were re-recorded or re-deployed
+    MacroCache.getInstance().refresh();
+  }
 
   @Override
   public void disabledPeriodic() {}
@@ -75,13 +75,13 @@ public class RobotContainer {
     // autoScheduler.setCommands(
     //   new ExampleAutoCommand(exampleSubsystem, () -> 1)
     //     .declareCondition(
-    //       () -> (autoScheduler.autoTimePassed(2) && !autoScheduler.autoTimePassed(3))
+    //       autoScheduler.autoTimeWindow(2, 3)
     //     )
     //     .declareOperationTag(new PauseDefaultCommand(autoScheduler)),
 
     //   new ExampleAutoCommand(exampleSubsystem, () -> 1)
     //     .declareCondition(
-    //       () -> (autoScheduler.autoTimePassed(4) && !autoScheduler.autoTimePassed(5))
+    //       autoScheduler.autoTimeWindow(4, 5)
     //     )
     //     .declareOperationTag(new PauseDefaultCommand(autoScheduler))
     // );
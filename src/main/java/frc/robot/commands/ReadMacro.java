@@ -4,7 +4,7 @@
 
 package frc.robot.commands;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.libraries.AutoFramework.AutoCommandBase;
@@ -24,7 +24,7 @@ public class ReadMacro extends AutoCommandBase {
   public void initialize() {
     try {
       subsystem.macroTestMotor.beginRead();
-    } catch (FileNotFoundException e) {
+    } catch (IOException e) {
       // TODO Auto-generated catch block
       e.printStackTrace();
     }
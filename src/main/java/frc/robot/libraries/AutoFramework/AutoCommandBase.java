@@ -25,6 +25,21 @@ public abstract class AutoCommandBase extends CommandBase {
     public OperationMode operationCondition = new AutoOperationMode.WhileTrue(); // Default
     public List<OperationTag> operationTagArr = new ArrayList<OperationTag>();
 
+    /**
+     * Seconds between runs of this command, 0 to run every scheduler pass
+     */
+    public double period = 0;
+
+    // Priorities, anything below normal can be put off when a pass runs long
+    public static final int kLowPriority = -1;
+    public static final int kNormalPriority = 0;
+    public static final int kHighPriority = 1;
+
+    /**
+     * Higher priority commands run first within a pass
+     */
+    public int priority = kNormalPriority;
+
     /**
      * Declares the operating condition of the command
      * for the scheduler polling operations
@@ -57,6 +72,44 @@ public abstract class AutoCommandBase extends CommandBase {
         return this;
     }
 
+    /**
+     * Declares how often the scheduler services this command, condition
+     * and all. A fast period (say 0.005 for a 200Hz PID) makes the
+     * scheduler run its passes on a notifier at that rate; a slow one
+     * (0.1 for a 10Hz vision check) skips the command on passes in between.
+     * Periods are rounded to a whole number of scheduler passes.
+     * 
+     * @param Seconds Time between runs, or 0 for every pass
+     * 
+     * @return self for chaining
+     * 
+     * @see AutoCommandScheduler#setPollPeriod(double)
+     */
+    public AutoCommandBase declarePeriod(double Seconds) {
+        period = Seconds;
+
+        return this;
+    }
+
+    /**
+     * Declares how important this command is when the scheduler is short
+     * on time. Commands run highest priority first, and once a pass uses
+     * up its budget, commands below {@link #kNormalPriority} are put off
+     * to the next pass (but never more than a few passes in a row).
+     * 
+     * @param Priority {@link #kLowPriority}, {@link #kNormalPriority},
+     * {@link #kHighPriority} or any other int
+     * 
+     * @return self for chaining
+     * 
+     * @see AutoCommandScheduler#setPassBudget(double)
+     */
+    public AutoCommandBase declarePriority(int Priority) {
+        priority = Priority;
+
+        return this;
+    }
+
     /**
      * Declares special modefiers for the AutoCommandScheduler this command
      * is running within. 
@@ -75,11 +128,4 @@ public abstract class AutoCommandBase extends CommandBase {
 
         return this;
     }
-
-
-    
-    /**
-     * For OnFalse functionality of the end() function
-     */
-    boolean endLock = true;
 }
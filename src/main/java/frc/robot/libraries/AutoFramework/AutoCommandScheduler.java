@@ -4,38 +4,102 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.BooleanSupplier;
 
-import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.commands.ExampleAutoCommand;
+import frc.robot.libraries.Clock;
+import frc.robot.libraries.ClockTimer;
+import frc.robot.libraries.AutoFramework.AutoOperationMode.EdgeTag;
 import frc.robot.libraries.AutoFramework.AutoOperationMode.OperationTag;
 
 /**
  * This class can function as a command, thus it can be returned by
  * RobotContainer.getAutonomousCommand
+ * 
+ * <p>Each time the robot runs this command, the scheduler makes a single
+ * polling pass over its commands, and the command finishes once the auto
+ * time runs out. A faster poll rate can be set for autos with commands
+ * that need servicing more often than the robot loop.
+ * 
+ * <p>Commands can also declare their own period. The scheduler then
+ * ticks at the fastest period any command asked for, and services each
+ * command (and the default command) only on its own ticks.
  */
 public class AutoCommandScheduler extends CommandBase {
 
+    /**
+     * Length of a standard autonomous period, in seconds
+     */
+    public static final double defaultAutoLength = 15;
+
+    // Seconds of auto time between profile publishes
+    static final double kProfilePublishPeriod = 1;
+    // Least seconds of auto time between overrun warnings
+    static final double kOverrunLogPeriod = 1;
+
     /**
      * Main autonomous process timer
      */
-    public Timer AutoTimer = new Timer();
+    public ClockTimer AutoTimer = new ClockTimer();
 
     /**
      * Default command operation timer
      */
-    public Timer DefaultCommandTimer = new Timer();
+    public ClockTimer DefaultCommandTimer = new ClockTimer();
     
     /**
      * Set of commands to periodically scheduler
      */
-    private AutoCommandBase defaultCommand = new InstantAutoCommand();
+    private AutoCommandBase defaultCommand = InstantAutoCommand.kNoOp;
+
+    // Number of things currently holding the default command paused
+    private int defaultPauseCount = 0;
 
     /**
-     * Set of commands within the auto
+     * Set of commands within the auto. Only read when the auto starts,
+     * the scheduler runs off a frozen copy from then on
      */
     public List<AutoCommandBase> pollCommandArr = new ArrayList<AutoCommandBase>();
 
+    private double autoLength = defaultAutoLength;
+
+    // 0 to poll once per robot loop
+    private double pollPeriod = 0;
+    private Notifier pollNotifier;
+
+    // Pass rate, the fastest of the poll period and any command's period
+    private double tickPeriod = TimedRobot.kDefaultPeriod;
+    private long tick = 0;
+
+    private Clock clock = Clock.kFPGA;
+
+    // Frozen from pollCommandArr when the auto starts
+    private AutoCommandTable commandTable;
+
+    private boolean printTimeline = false;
+
+    // Null unless profiling is on
+    private boolean profiling = false;
+    private AutoProfiler profiler;
+    private double lastProfilePublish;
+
+    // 0 to run every command on the scheduler thread
+    private int parallelWorkers = 0;
+    private AutoParallelExecutor parallelExecutor;
+
+    // 0 for no budget
+    private long passBudgetNanos = 0;
+    private long overrunCount = 0, deferredCount = 0;
+    private double lastOverrunLog;
+
+    // Pass timing, for finding loop overruns
+    private long lastPassNanos = 0, maxPassNanos = 0, totalPassNanos = 0;
+    private long passCount = 0;
+
     /**
      * @param seconds
      * @return true if auto time is greater than seconds
@@ -52,6 +116,34 @@ public class AutoCommandScheduler extends CommandBase {
         return DefaultCommandTimer.get() >= seconds;
     }
 
+    /**
+     * Condition that is true from Start until End seconds into the auto.
+     * Unlike a lambda around {@link #autoTimePassed(double)}, the scheduler
+     * turns these into timeline events and doesn't poll the command at
+     * all while the window is closed.
+     * 
+     * @param Start Auto time the window opens, in seconds
+     * @param End Auto time the window closes, in seconds
+     * @return time window condition for {@link AutoCommandBase#declareCondition}
+     * 
+     * @see AutoCondition#between(double, double)
+     */
+    public AutoCondition autoTimeWindow(double Start, double End) {
+        return AutoCondition.between(Start, End).bind(this);
+    }
+
+    /**
+     * Condition that is true once Start seconds have passed in the auto.
+     * 
+     * @param Start Auto time the condition turns true, in seconds
+     * @return time window condition for {@link AutoCommandBase#declareCondition}
+     * 
+     * @see #autoTimeWindow(double, double)
+     */
+    public AutoCondition autoTimeAfter(double Start) {
+        return AutoCondition.after(Start).bind(this);
+    }
+
     /**
      * Creates a new AutoCommandScheduler, to handle a single
      * autonomous command series.
@@ -71,6 +163,7 @@ public class AutoCommandScheduler extends CommandBase {
     public AutoCommandScheduler setCommands(AutoCommandBase... AutoCommands) {
 
         pollCommandArr.clear();
+        commandTable = null;
         for (AutoCommandBase autoCommandBase : AutoCommands) {
             pollCommandArr.add(autoCommandBase);
         }
@@ -78,6 +171,15 @@ public class AutoCommandScheduler extends CommandBase {
         // Add current instance of self to child commands
         for (AutoCommandBase autoCommandBase : AutoCommands) {
             autoCommandBase.parentScheduler = this;
+
+            // And to their conditions, which need the auto timer
+            if (autoCommandBase.condition != null) {
+                for (BooleanSupplier cond : autoCommandBase.condition) {
+                    if (cond instanceof AutoCondition) {
+                        ((AutoCondition) cond).bind(this);
+                    }
+                }
+            }
         }
         // Parents need to talk to their children!!
 
@@ -108,79 +210,539 @@ public class AutoCommandScheduler extends CommandBase {
         return defaultCommand;
     }
 
+    /**
+     * Pauses the default command until a matching
+     * {@link #resumeDefaultCommand()}. Pauses stack, so overlapping
+     * commands can each pause and resume it, and it only comes back once
+     * all of them have resumed. The first pause ends the default command
+     * and stops its timer.
+     * 
+     * @see AutoOperationMode.PauseDefaultCommand
+     */
+    public synchronized void pauseDefaultCommand() {
+        if (defaultPauseCount++ == 0) {
+            defaultCommand.end(false);
+            DefaultCommandTimer.stop();
+        }
+    }
+
+    /**
+     * Releases one {@link #pauseDefaultCommand()}. The last one
+     * restarts the default command and its timer. Extra resumes do nothing.
+     */
+    public synchronized void resumeDefaultCommand() {
+        if (defaultPauseCount > 0 && --defaultPauseCount == 0) {
+            defaultCommand.initialize();
+            DefaultCommandTimer.start();
+        }
+    }
+
+    /**
+     * @return true while anything is holding the default command paused
+     */
+    public boolean isDefaultCommandPaused() {
+        return defaultPauseCount > 0;
+    }
+
+    /**
+     * @param Seconds How long the auto runs before this command finishes
+     * 
+     * @return self for chaining
+     */
+    public AutoCommandScheduler setAutoLength(double Seconds) {
+        autoLength = Seconds;
+
+        return this;
+    }
+
+    /**
+     * @return how long the auto runs, in seconds
+     */
+    public double getAutoLength() {
+        return autoLength;
+    }
+
+    /**
+     * Sets how often the commands are polled. By default they are polled
+     * once per robot loop. A shorter period polls them from a separate
+     * {@link Notifier} thread instead, for commands that need servicing
+     * more often than every 20ms. Commands then run on that thread, so
+     * they must not share unsynchronized state with the robot thread.
+     * 
+     * @param Seconds Time between polling passes, or 0 to poll once per
+     * robot loop
+     * 
+     * @return self for chaining
+     */
+    public AutoCommandScheduler setPollPeriod(double Seconds) {
+        pollPeriod = Seconds;
+
+        return this;
+    }
+
+    /**
+     * Sets the clock the auto and default command timers run on. With a
+     * simulated clock the scheduler never starts its own poll thread;
+     * whatever advances the clock calls {@link #pollCommands()}, usually
+     * an {@link AutoSimulationRunner}.
+     * 
+     * @param Source Clock to time the auto on
+     * 
+     * @return self for chaining
+     */
+    public AutoCommandScheduler setClock(Clock Source) {
+        clock = Source;
+        AutoTimer.setClock(Source);
+        DefaultCommandTimer.setClock(Source);
+
+        return this;
+    }
+
+    /**
+     * @return clock the auto is timed on
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Runs the execute() and end() of commands with different
+     * requirements at the same time on a pool of worker threads, with the
+     * pass waiting for all of them before the default command runs.
+     * Commands sharing a subsystem run one after another on the same
+     * worker, and commands with no requirements stay on the scheduler
+     * thread. Conditions, modes and tags are always handled on the
+     * scheduler thread.
+     * 
+     * <p>Commands sharing a subsystem are only allowed if their
+     * {@link AutoCondition} windows never overlap and they run while
+     * true; otherwise the auto reports an error and runs serially.
+     * 
+     * @param Workers Number of worker threads, or 0 to run serially.
+     * The roboRIO 2 has two cores, so 1 is usually the useful value
+     * 
+     * @return self for chaining
+     */
+    public AutoCommandScheduler setParallelWorkers(int Workers) {
+        parallelWorkers = Workers;
+
+        return this;
+    }
+
+    /**
+     * Sets how long a single pass may take. Once a pass has used up its
+     * budget, commands below {@link AutoCommandBase#kNormalPriority} (and
+     * their tags) are put off to the next pass instead, but never more
+     * than five passes in a row. Normal and high priority commands and the default
+     * command always run. Passes that go over budget anyway are counted
+     * as overruns and logged to the driver station.
+     * 
+     * <p>With parallel workers, only the time spent on the scheduler
+     * thread before the barrier counts towards the budget for deferring.
+     * 
+     * @param Seconds Budget for each pass, or 0 for none
+     * 
+     * @return self for chaining
+     * 
+     * @see AutoCommandBase#declarePriority(int)
+     */
+    public AutoCommandScheduler setPassBudget(double Seconds) {
+        passBudgetNanos = (long) (Seconds * 1e9);
+
+        return this;
+    }
+
+    /**
+     * @return number of passes this auto that took longer than the budget
+     */
+    public long getOverrunCount() {
+        return overrunCount;
+    }
+
+    /**
+     * @return number of times a command was put off to a later pass
+     */
+    public long getDeferredCount() {
+        return deferredCount;
+    }
+
+    /**
+     * Times every command's execute() and end(), condition and tags,
+     * plus the default command, with min/avg/p99/max published under
+     * AutoProfiler/ on the dashboard and written to the
+     * {@link DataLogManager} log when the auto ends.
+     * Costs two clock reads per thing timed, so leave it off in matches.
+     * 
+     * <p>Logging starts DataLogManager if nothing else has, and from then
+     * on it records all of NetworkTables to the roboRIO's disk. If that's
+     * not wanted, leave this off and read {@link #getProfileReport()}.
+     * 
+     * @param Profile Whether to profile the next auto
+     * 
+     * @return self for chaining
+     */
+    public AutoCommandScheduler setProfiling(boolean Profile) {
+        profiling = Profile;
+
+        return this;
+    }
+
+    /**
+     * @return profile table of the current or last profiled auto,
+     * or an empty string if profiling was off
+     */
+    public String getProfileReport() {
+        AutoProfiler current = profiler;
+        if (current == null) {
+            return "";
+        }
+
+        synchronized (this) {
+            current.snapshot();
+            return current.report();
+        }
+    }
+
+    /**
+     * Logging starts DataLogManager if nothing else has, and from then on
+     * it records all of NetworkTables to the roboRIO's disk. If that's not
+     * wanted, leave this off and print {@link #describeTimeline()} instead.
+     * 
+     * @param Print Whether to write the auto timeline to the
+     * {@link DataLogManager} log (and console) when the auto starts
+     * 
+     * @return self for chaining
+     * 
+     * @see #describeTimeline()
+     */
+    public AutoCommandScheduler setPrintTimeline(boolean Print) {
+        printTimeline = Print;
+
+        return this;
+    }
+
+    /**
+     * Lists every command with the auto times its condition could be
+     * true, worked out from its {@link AutoCondition}s. Commands with
+     * only lambda conditions show up as "always".
+     * 
+     * @return printable timeline, one command per line
+     */
+    public String describeTimeline() {
+        return buildTable().describe(autoLength);
+    }
+
+    /**
+     * @return period of commands that don't declare their own, in seconds
+     */
+    public double getBasePeriod() {
+        return pollPeriod > 0 ? pollPeriod : TimedRobot.kDefaultPeriod;
+    }
+
+    /**
+     * @return time between polling passes, in seconds
+     */
+    public double getTickPeriod() {
+        return tickPeriod;
+    }
+
+    private AutoCommandTable buildTable() {
+        tickPeriod = getBasePeriod();
+        for (AutoCommandBase autoCommandBase : pollCommandArr) {
+            if (autoCommandBase.period > 0) {
+                tickPeriod = Math.min(tickPeriod, autoCommandBase.period);
+            }
+        }
+        if (defaultCommand.period > 0) {
+            tickPeriod = Math.min(tickPeriod, defaultCommand.period);
+        }
+
+        return new AutoCommandTable(this, pollCommandArr, tickPeriod, getBasePeriod());
+    }
+
+    /**
+     * @return duration of the last polling pass, in nanoseconds
+     */
+    public long getLastPassNanos() {
+        return lastPassNanos;
+    }
+
+    /**
+     * @return duration of the longest polling pass this auto, in nanoseconds
+     */
+    public long getMaxPassNanos() {
+        return maxPassNanos;
+    }
+
+    /**
+     * @return number of polling passes made this auto
+     */
+    public long getPassCount() {
+        return passCount;
+    }
+
     // Called when the command is initially scheduled.
     @Override
     public void initialize() {
-        AutoTimer.start();
-        DefaultCommandTimer.start();
+        AutoTimer.restart();
+        DefaultCommandTimer.restart();
+
+        lastPassNanos = maxPassNanos = totalPassNanos = passCount = 0;
+        overrunCount = deferredCount = 0;
+        defaultPauseCount = 0;
+        lastOverrunLog = -kOverrunLogPeriod;
+        lastProfilePublish = -kProfilePublishPeriod;
+
+        // Commands, conditions and periods are fixed from here on
+        commandTable = buildTable();
+        tick = 0;
+
+        for (int t = 0; t < commandTable.tagCount(); t++) {
+            commandTable.tag(t).onAutoStart();
+        }
+
+        if (printTimeline) {
+            DataLogManager.log(commandTable.describe(autoLength));
+        }
+
+        profiler = profiling ? new AutoProfiler(commandTable) : null;
+
+        if (parallelExecutor != null) {
+            parallelExecutor.close();
+            parallelExecutor = null;
+        }
+        if (parallelWorkers > 0) {
+            parallelExecutor = AutoParallelExecutor.create(commandTable, parallelWorkers, profiler);
+        }
+
+        defaultCommand.initialize();
+
+        // Anything faster than the robot loop needs its own thread, unless
+        // simulated time is driving the passes
+        if (!clock.isSimulated() && (pollPeriod > 0 || tickPeriod < TimedRobot.kDefaultPeriod)) {
+            pollNotifier = new Notifier(this::pollCommands);
+            pollNotifier.setName("AutoCommandScheduler");
+            pollNotifier.startPeriodic(tickPeriod);
+        }
     }
 
     @Override
-    public void execute() { // Ran once by robot
+    public void execute() { // Ran once per robot loop
 
-        defaultCommand.initialize();
+        if (pollNotifier == null) {
+            pollCommands();
+        }
 
-        while (AutoTimer.get() < 15) {
+        SmartDashboard.putNumber("AutoScheduler/Last Pass us", lastPassNanos / 1e3);
+        SmartDashboard.putNumber("AutoScheduler/Max Pass us", maxPassNanos / 1e3);
+        SmartDashboard.putNumber("AutoScheduler/Avg Pass us", passCount == 0 ? 0 : totalPassNanos / 1e3 / passCount);
 
-            // Loop for 15 seconds
+        if (passBudgetNanos > 0) {
+            SmartDashboard.putNumber("AutoScheduler/Overruns", overrunCount);
+            SmartDashboard.putNumber("AutoScheduler/Deferred", deferredCount);
+        }
 
-            for (AutoCommandBase autoCommandBase : pollCommandArr) {
+        // Once a second is plenty for the profile. Timed rather than counted,
+        // passes can come much faster than the robot loop
+        AutoProfiler currentProfiler = profiler;
+        if (currentProfiler != null && AutoTimer.get() - lastProfilePublish >= kProfilePublishPeriod) {
+            lastProfilePublish = AutoTimer.get();
 
-                // Im building a nest to hatch my babies
-                // Im so sorry for whoever reads this code
+            // Passes may be recording on the poll thread
+            synchronized (this) {
+                currentProfiler.snapshot();
+            }
+            currentProfiler.publish();
+        }
 
-                boolean condition = true;
-                for (BooleanSupplier cond : autoCommandBase.condition) {
-                    if (cond.getAsBoolean() == false) {
-                        condition = false;
-                    }
-                }
+        AutoParallelExecutor executor = parallelExecutor;
+        if (executor != null) {
+            SmartDashboard.putNumber("AutoScheduler/Parallel Wall us", executor.getLastParallelNanos() / 1e3);
+            SmartDashboard.putNumber("AutoScheduler/Serial Equivalent us", executor.getLastSerialNanos() / 1e3);
+        }
+    }
 
-                if (condition) {
-                    if (autoCommandBase.operationCondition.TruePoll()) {
-                        // Schedule the command
-                        autoCommandBase.execute();
-                        autoCommandBase.endLock = true;
-                    } else {
-                        if (autoCommandBase.endLock) {
-                            autoCommandBase.end(false);
-                            autoCommandBase.endLock = false;
-                        }
-                    }
+    @Override
+    public boolean isFinished() {
+        return AutoTimer.get() >= autoLength;
+    }
 
-                    // Run tag functions
-                    for (OperationTag operationTag : autoCommandBase.operationTagArr) {
-                        operationTag.TruePoll();
-                    }
-                } else {
-                    if (autoCommandBase.operationCondition.FalsePoll()) {
-                        // Schedule the command
-                        autoCommandBase.execute();
-                        autoCommandBase.endLock = true;
-                    } else {
-                        if (autoCommandBase.endLock) {
-                            autoCommandBase.end(false);
-                            autoCommandBase.endLock = false;
-                        }
-                    }
+    /**
+     * Runs a single polling pass; every awake command's condition is
+     * checked and the command, its tags, and the default command are ran
+     * accordingly. Conditions stop at the first false supplier, and
+     * commands whose {@link #autoTimeWindow} has closed are skipped
+     * until it opens again.
+     */
+    public synchronized void pollCommands() {
+        long start = System.nanoTime();
 
-                    // Run tag functions
-                    for (OperationTag operationTag : autoCommandBase.operationTagArr) {
-                        operationTag.FalsePoll();
-                    }
+        if (commandTable == null) {
+            commandTable = buildTable();
+        }
+
+        // Open and close the time windows that came due
+        commandTable.advance(tick, AutoTimer.get());
+
+        int deferred = 0;
+
+        // Only awake commands due this tick are looked at, highest priority first
+        for (int index = commandTable.pollDue(); index >= 0; index = commandTable.pollDue()) {
+            AutoCommandBase autoCommandBase = commandTable.command(index);
+
+            // Out of time, low priority stuff can wait
+            if (passBudgetNanos > 0 && commandTable.isDeferrable(index)
+                && System.nanoTime() - start > passBudgetNanos) {
+                commandTable.defer(index);
+                deferred++;
+                continue;
+            }
+
+            // Im building a nest to hatch my babies
+            // Im so sorry for whoever reads this code
+
+            long conditionStart = profiler != null ? System.nanoTime() : 0;
+            boolean condition = commandTable.evaluate(index);
+            if (profiler != null) {
+                profiler.record(profiler.conditionSlot(index), System.nanoTime() - conditionStart);
+            }
+
+            int edge = commandTable.edge(index, condition);
+
+            if (commandTable.poll(index, condition, edge)) {
+                // Schedule the command
+                runCommand(index, autoCommandBase);
+                commandTable.setRunning(index, true);
+            } else if (commandTable.isRunning(index)) {
+                endCommand(index, autoCommandBase);
+                commandTable.setRunning(index, false);
+            }
+
+            // Run tag functions, edge tags only when something changed
+            for (int t = commandTable.tagStart(index); t < commandTable.tagEnd(index); t++) {
+                if (edge != AutoCommandTable.kNoEdge || !commandTable.isEdgeTag(t)) {
+                    runTag(t, condition, edge);
                 }
             }
 
-            // Schedule default commands
+            // Back on the heap for its next tick, or to sleep
+            commandTable.settle(index, condition);
+        }
+
+        // Barrier, every lane is done before the default command runs
+        if (parallelExecutor != null) {
+            parallelExecutor.run();
+        }
+
+        // Schedule default commands
+        if (defaultPauseCount == 0
+            && tick % AutoCommandTable.ticksFor(defaultCommand.period, tickPeriod, getBasePeriod()) == 0) {
+            long defaultStart = profiler != null ? System.nanoTime() : 0;
             defaultCommand.execute();
+            if (profiler != null) {
+                profiler.record(profiler.defaultSlot(), System.nanoTime() - defaultStart);
+            }
+        }
+        tick++;
+
+        lastPassNanos = System.nanoTime() - start;
+        totalPassNanos += lastPassNanos;
+        maxPassNanos = Math.max(maxPassNanos, lastPassNanos);
+        deferredCount += deferred;
+
+        if (passBudgetNanos > 0 && lastPassNanos > passBudgetNanos) {
+            overrunCount++;
+
+            // At most once a second, the driver station doesn't need a flood.
+            // Timed rather than counted, passes can come faster than the robot loop
+            double now = AutoTimer.get();
+            if (now - lastOverrunLog >= kOverrunLogPeriod) {
+                lastOverrunLog = now;
+                DriverStation.reportWarning(String.format(
+                    "AutoCommandScheduler: pass %d took %.2fms, budget %.2fms, deferred %d (%d overruns so far)",
+                    passCount, lastPassNanos / 1e6, passBudgetNanos / 1e6, deferred, overrunCount), false);
+            }
+        }
+
+        passCount++;
+    }
+
+    private void runTag(int t, boolean condition, int edge) {
+        long tagStart = profiler != null ? System.nanoTime() : 0;
+        OperationTag operationTag = commandTable.tag(t);
+
+        if (!commandTable.isEdgeTag(t)) {
+            if (condition) {
+                operationTag.TruePoll();
+            } else {
+                operationTag.FalsePoll();
+            }
+        } else if (edge == AutoCommandTable.kRising) {
+            ((EdgeTag) operationTag).onRising();
+        } else {
+            ((EdgeTag) operationTag).onFalling();
+        }
+
+        if (profiler != null) {
+            profiler.record(profiler.tagSlot(t), System.nanoTime() - tagStart);
+        }
+    }
+
+    private void runCommand(int index, AutoCommandBase autoCommandBase) {
+        if (parallelExecutor != null) {
+            parallelExecutor.queue(index, AutoParallelExecutor.EXECUTE);
+        } else if (profiler != null) {
+            long commandStart = System.nanoTime();
+            autoCommandBase.execute();
+            profiler.record(profiler.commandSlot(index), System.nanoTime() - commandStart);
+        } else {
+            autoCommandBase.execute();
         }
+    }
 
-        defaultCommand.end(false);
+    private void endCommand(int index, AutoCommandBase autoCommandBase) {
+        if (parallelExecutor != null) {
+            parallelExecutor.queue(index, AutoParallelExecutor.END);
+        } else if (profiler != null) {
+            long commandStart = System.nanoTime();
+            autoCommandBase.end(false);
+            profiler.record(profiler.commandSlot(index), System.nanoTime() - commandStart);
+        } else {
+            autoCommandBase.end(false);
+        }
     }
 
     // Called once the command ends or is interrupted.
     @Override
     public void end(boolean interrupted) {
+        if (pollNotifier != null) {
+            pollNotifier.stop();
+            pollNotifier.close();
+            pollNotifier = null;
+        }
+
+        // Wait out any pass still running on the notifier thread
+        synchronized (this) {
+            // A paused default command was already ended
+            if (defaultPauseCount == 0) {
+                defaultCommand.end(interrupted);
+            }
+
+            if (parallelExecutor != null) {
+                parallelExecutor.close();
+                parallelExecutor = null;
+            }
+
+            if (profiler != null) {
+                profiler.snapshot();
+            }
+        }
+
+        if (profiler != null) {
+            profiler.publish();
+            DataLogManager.log(profiler.report());
+        }
+
         AutoTimer.stop();
         DefaultCommandTimer.stop();
     }
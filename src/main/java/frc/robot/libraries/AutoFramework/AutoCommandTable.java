@@ -0,0 +1,556 @@
+package frc.robot.libraries.AutoFramework;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import frc.robot.libraries.AutoFramework.AutoOperationMode.EdgeTag;
+import frc.robot.libraries.AutoFramework.AutoOperationMode.OperationTag;
+import frc.robot.libraries.AutoFramework.AutoOperationMode.Trigger;
+
+/**
+ * The scheduler's configuration, frozen when the auto starts into flat
+ * per-command arrays: state bits (including last pass's condition, for
+ * edges), mode triggers, ranges into one flat tag array, and a bitset of
+ * which commands are running. A pass
+ * then works on a few arrays instead of walking every command's lists
+ * and mode objects, and doesn't allocate.
+ *
+ * <p>It also splits each command's condition into the parts the scheduler can see
+ * into ({@link AutoCondition}s) and opaque suppliers. From the former it
+ * works out when the command could possibly be true, which become sorted
+ * open/close events on a timeline. Commands whose window is closed (and
+ * who have nothing left to do while false) are put to sleep until their
+ * next event, so a pass only looks at the commands that are awake.
+ *
+ * <p>Awake commands sit in a min-heap keyed by the tick they are next
+ * due, so commands with a longer {@link AutoCommandBase#period} are only
+ * looked at on their own ticks. Ties go to higher priority, then
+ * declaration order.
+ */
+final class AutoCommandTable {
+
+    // Passes in a row a low priority command can be put off
+    static final int kMaxDeferrals = 5;
+
+    // Condition edges, see AutoOperationMode
+    static final int kNoEdge = 0, kRising = 1, kFalling = 2;
+
+    // Per-command state bits
+    private static final byte kWindowed = 1, kWindowOpen = 2, kAwake = 4, kCanSleep = 8,
+        kLastCondition = 16, kSeen = 32;
+
+    private final AutoCommandBase[] commands;
+    private final byte[] state;
+
+    // Modes with a trigger run straight off the edges, polled ones get their virtual calls
+    private final Trigger[] triggers;
+
+    // Commands that executed and haven't been ended yet, what used to be endLock
+    private final long[] running;
+
+    // Every command's tags back to back, command i owns tagStarts[i] until tagStarts[i + 1]
+    private final OperationTag[] tags;
+    private final boolean[] edgeTags;
+    private final int[] tagStarts;
+
+    // Conditions that still have to be evaluated while the window is open
+    private final AutoCondition.Program[][] programs;
+    // Suppliers that actually have to be called, per command
+    private final BooleanSupplier[][] dynamic;
+
+    private final double[][] windows;
+    private final int[] falsePasses;
+
+    // Timeline, sorted by time
+    private final double[] eventTimes;
+    private final int[] eventCommands;
+    private final boolean[] eventOpens;
+    private int nextEvent = 0;
+
+    // Awake commands, by the tick they are due
+    private final int[] periodTicks;
+    private final long[] dueTicks;
+    private final int[] priorities;
+    private final int[] deferrals;
+    private final int[] heap;
+    private int heapSize = 0;
+
+    // Tick and auto time of the current pass
+    private long tick = 0;
+    private double now = 0;
+
+    /**
+     * @param tickPeriod Time between passes, in seconds
+     * @param basePeriod Period for commands that didn't declare one
+     */
+    AutoCommandTable(AutoCommandScheduler scheduler, List<AutoCommandBase> commandList,
+        double tickPeriod, double basePeriod) {
+        int count = commandList.size();
+
+        commands = commandList.toArray(new AutoCommandBase[count]);
+        state = new byte[count];
+        triggers = new Trigger[count];
+        running = new long[(count + 63) >> 6];
+        tagStarts = new int[count + 1];
+        programs = new AutoCondition.Program[count][];
+        dynamic = new BooleanSupplier[count][];
+        windows = new double[count][];
+        falsePasses = new int[count];
+        periodTicks = new int[count];
+        dueTicks = new long[count];
+        priorities = new int[count];
+        deferrals = new int[count];
+        heap = new int[count];
+
+        int eventCount = 0;
+
+        int tagCount = 0;
+        for (AutoCommandBase command : commands) {
+            tagCount += command.operationTagArr.size();
+        }
+        tags = new OperationTag[tagCount];
+        edgeTags = new boolean[tagCount];
+
+        for (int i = 0; i < count; i++) {
+            AutoCommandBase command = commands[i];
+            boolean windowed = false;
+
+            // Every condition has to be true, so their windows intersect
+            double[] window = TimeIntervals.ALWAYS;
+            int programCount = 0, dynamicCount = 0;
+            AutoCondition.Program[] compiled = new AutoCondition.Program[command.condition.length];
+            BooleanSupplier[] suppliers = new BooleanSupplier[command.condition.length];
+
+            for (BooleanSupplier cond : command.condition) {
+                if (cond instanceof AutoCondition
+                    && ((AutoCondition) cond).bind(scheduler).getScheduler() == scheduler) {
+
+                    AutoCondition.Program program = ((AutoCondition) cond).compiled();
+                    window = TimeIntervals.intersect(window, program.mayBeTrue);
+                    windowed = true;
+
+                    // Pure time windows are true whenever the window is open
+                    if (!program.timeOnly) {
+                        compiled[programCount++] = program;
+                    }
+                } else {
+                    suppliers[dynamicCount++] = cond;
+                }
+            }
+
+            programs[i] = Arrays.copyOf(compiled, programCount);
+            dynamic[i] = Arrays.copyOf(suppliers, dynamicCount);
+            windows[i] = windowed ? window : TimeIntervals.ALWAYS;
+
+            if (windowed) {
+                for (int k = 0; k < window.length; k += 2) {
+                    eventCount += window[k + 1] == Double.POSITIVE_INFINITY ? 1 : 2;
+                }
+            }
+
+            // Whether the mode and every tag do nothing on repeated false polls
+            boolean idle = command.operationCondition.isIdleWhileFalse();
+            tagStarts[i + 1] = tagStarts[i];
+            for (OperationTag operationTag : command.operationTagArr) {
+                idle &= operationTag.isIdleWhileFalse();
+                edgeTags[tagStarts[i + 1]] = operationTag instanceof EdgeTag
+                    && !AutoOperationMode.overridesPolls(operationTag, EdgeTag.class);
+                tags[tagStarts[i + 1]++] = operationTag;
+            }
+
+            triggers[i] = command.operationCondition.getTrigger();
+
+            if (windowed) {
+                set(i, kWindowed, true);
+                set(i, kCanSleep, idle);
+            }
+
+            periodTicks[i] = ticksFor(command.period, tickPeriod, basePeriod);
+            priorities[i] = command.priority;
+
+            // Ended on the first pass if it doesn't run, like a fresh endLock
+            running[i >> 6] |= 1L << i;
+
+            // Everyone gets polled on the first pass
+            set(i, kAwake, true);
+            push(i, 0);
+        }
+
+        // Build the timeline, in declaration order then sorted by time
+        double[] times = new double[eventCount];
+        int[] commandOf = new int[eventCount];
+        boolean[] opensOf = new boolean[eventCount];
+        int e = 0;
+        for (int i = 0; i < count; i++) {
+            if (!has(i, kWindowed)) {
+                continue;
+            }
+            double[] window = windows[i];
+            for (int k = 0; k < window.length; k += 2) {
+                times[e] = window[k];
+                commandOf[e] = i;
+                opensOf[e++] = true;
+                if (window[k + 1] != Double.POSITIVE_INFINITY) {
+                    times[e] = window[k + 1];
+                    commandOf[e] = i;
+                    opensOf[e++] = false;
+                }
+            }
+        }
+
+        Integer[] sorted = new Integer[eventCount];
+        for (int k = 0; k < eventCount; k++) {
+            sorted[k] = k;
+        }
+        Arrays.sort(sorted, (x, y) -> Double.compare(times[x], times[y]));
+
+        eventTimes = new double[eventCount];
+        eventCommands = new int[eventCount];
+        eventOpens = new boolean[eventCount];
+
+        for (int k = 0; k < eventCount; k++) {
+            int src = sorted[k];
+            eventTimes[k] = times[src];
+            eventCommands[k] = commandOf[src];
+            eventOpens[k] = opensOf[src];
+        }
+    }
+
+    /**
+     * Applies every event at or before the given auto time
+     * 
+     * @param tick Number of the current pass
+     * @param now Current auto time, in seconds
+     */
+    void advance(long tick, double now) {
+        this.tick = tick;
+        this.now = now;
+
+        while (nextEvent < eventTimes.length && eventTimes[nextEvent] <= now) {
+            int i = eventCommands[nextEvent];
+            set(i, kWindowOpen, eventOpens[nextEvent]);
+            wake(i);
+            nextEvent++;
+        }
+    }
+
+    /**
+     * Takes the next command due this tick off the heap. It goes back
+     * on when {@link #settle} is called for it, unless it falls asleep.
+     * 
+     * @return index of the command, or -1 once nothing else is due
+     */
+    int pollDue() {
+        if (heapSize == 0 || dueTicks[heap[0]] > tick) {
+            return -1;
+        }
+
+        int i = heap[0];
+        heap[0] = heap[--heapSize];
+        siftDown(0);
+
+        return i;
+    }
+
+    AutoCommandBase command(int i) {
+        return commands[i];
+    }
+
+    int size() {
+        return commands.length;
+    }
+
+    /**
+     * @return auto times the command's condition could be true
+     */
+    double[] window(int i) {
+        return windows[i];
+    }
+
+    /**
+     * Evaluates a command's condition at the current pass time, skipping
+     * everything when its window is closed and stopping at the first
+     * false part
+     */
+    boolean evaluate(int i) {
+        if ((state[i] & (kWindowed | kWindowOpen)) == kWindowed) {
+            return false;
+        }
+
+        AutoCondition.Program[] compiled = programs[i];
+        for (int k = 0; k < compiled.length; k++) {
+            if (!compiled[k].evaluate(now)) {
+                return false;
+            }
+        }
+
+        BooleanSupplier[] suppliers = dynamic[i];
+        for (int k = 0; k < suppliers.length; k++) {
+            if (!suppliers[k].getAsBoolean()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Records the result of a pass for a command taken by
+     * {@link #pollDue}, and either schedules its next run or puts it to
+     * sleep if polling it again can't do anything until its next event.
+     * It needs two false passes in a row, so the tags have seen a false
+     * poll, and must already have been ended.
+     */
+    void settle(int i, boolean condition) {
+        deferrals[i] = 0;
+
+        if (condition) {
+            falsePasses[i] = 0;
+        } else if ((state[i] & (kCanSleep | kWindowOpen)) == kCanSleep && ++falsePasses[i] >= 2 && !isRunning(i)) {
+            set(i, kAwake, false);
+            return;
+        }
+
+        push(i, tick + periodTicks[i]);
+    }
+
+    /**
+     * Works out this pass's edge from the command's last condition. The
+     * first pass always counts as one.
+     * 
+     * @return {@link #kRising}, {@link #kFalling} or {@link #kNoEdge}
+     */
+    int edge(int i, boolean condition) {
+        byte bits = state[i];
+        boolean changed = (bits & kSeen) == 0 || ((bits & kLastCondition) != 0) != condition;
+
+        state[i] = (byte) ((bits & ~kLastCondition) | kSeen | (condition ? kLastCondition : 0));
+
+        if (!changed) {
+            return kNoEdge;
+        }
+        return condition ? kRising : kFalling;
+    }
+
+    /**
+     * Runs the command's operation mode for this pass
+     * 
+     * @param edge This pass's edge, from {@link #edge}
+     * @return true if the command should execute
+     */
+    boolean poll(int i, boolean condition, int edge) {
+        switch (triggers[i]) {
+            case WHILE_TRUE:
+                return condition;
+            case WHILE_FALSE:
+                return !condition;
+            case ON_RISING:
+                return edge == kRising;
+            case ON_FALLING:
+                return edge == kFalling;
+            default:
+                return condition
+                    ? commands[i].operationCondition.TruePoll()
+                    : commands[i].operationCondition.FalsePoll();
+        }
+    }
+
+    /**
+     * @return true if the tag only needs calling on edges
+     */
+    boolean isEdgeTag(int t) {
+        return edgeTags[t];
+    }
+
+    Trigger trigger(int i) {
+        return triggers[i];
+    }
+
+    /**
+     * @return true if the command executed and hasn't been ended since
+     */
+    boolean isRunning(int i) {
+        return (running[i >> 6] & (1L << i)) != 0;
+    }
+
+    void setRunning(int i, boolean value) {
+        if (value) {
+            running[i >> 6] |= 1L << i;
+        } else {
+            running[i >> 6] &= ~(1L << i);
+        }
+    }
+
+    /**
+     * @return flat index of the command's first tag
+     */
+    int tagStart(int i) {
+        return tagStarts[i];
+    }
+
+    /**
+     * @return flat index just past the command's last tag
+     */
+    int tagEnd(int i) {
+        return tagStarts[i + 1];
+    }
+
+    OperationTag tag(int t) {
+        return tags[t];
+    }
+
+    int tagCount() {
+        return tags.length;
+    }
+
+    /**
+     * @return true if the command can be put off to the next pass
+     */
+    boolean isDeferrable(int i) {
+        return priorities[i] < AutoCommandBase.kNormalPriority && deferrals[i] < kMaxDeferrals;
+    }
+
+    /**
+     * Puts a command taken by {@link #pollDue} off to the next pass
+     * without running it
+     */
+    void defer(int i) {
+        deferrals[i]++;
+        push(i, tick + 1);
+    }
+
+    /**
+     * @param autoLength Length of the auto, in seconds
+     * @return one line per command, ordered by when it could first run,
+     * with the times its condition could be true
+     */
+    String describe(double autoLength) {
+        Integer[] order = new Integer[commands.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(firstOpen(x), firstOpen(y)));
+
+        StringBuilder text = new StringBuilder();
+        text.append("Auto timeline (").append(AutoCondition.format(autoLength)).append("s)\n");
+
+        for (int i : order) {
+            double[] window = windows[i];
+
+            StringBuilder times = new StringBuilder();
+            if (window.length == 0) {
+                times.append("never");
+            } else if (Arrays.equals(window, TimeIntervals.ALWAYS)) {
+                times.append("always");
+            } else {
+                for (int k = 0; k < window.length; k += 2) {
+                    if (k > 0) {
+                        times.append(", ");
+                    }
+                    times.append(window[k] == Double.NEGATIVE_INFINITY ? "start" : AutoCondition.format(window[k]))
+                        .append(" - ")
+                        .append(window[k + 1] == Double.POSITIVE_INFINITY ? "end" : AutoCondition.format(window[k + 1]));
+                }
+            }
+
+            text.append(String.format("  %-26s %-24s ", times, commands[i].getName()));
+
+            BooleanSupplier[] condition = commands[i].condition;
+            for (int k = 0; k < condition.length; k++) {
+                if (k > 0) {
+                    text.append(" and ");
+                }
+                text.append(condition[k] instanceof AutoCondition ? condition[k].toString() : "<lambda>");
+            }
+
+            if (commands[i].period > 0) {
+                text.append("  @ ").append(Math.round(1 / commands[i].period)).append("Hz");
+            }
+            if (programs[i].length > 0 || dynamic[i].length > 0) {
+                text.append("  (checked every pass while open)");
+            }
+            text.append('\n');
+        }
+
+        return text.toString();
+    }
+
+    private boolean has(int i, byte bit) {
+        return (state[i] & bit) != 0;
+    }
+
+    private void set(int i, byte bit, boolean value) {
+        state[i] = (byte) (value ? state[i] | bit : state[i] & ~bit);
+    }
+
+    private double firstOpen(int i) {
+        return windows[i].length == 0 ? Double.POSITIVE_INFINITY : windows[i][0];
+    }
+
+    private void wake(int i) {
+        if (has(i, kAwake)) {
+            return;
+        }
+
+        set(i, kAwake, true);
+        falsePasses[i] = 0;
+
+        // Run it this pass, whatever its period
+        push(i, tick);
+    }
+
+    private void push(int i, long due) {
+        dueTicks[i] = due;
+
+        int k = heapSize++;
+        while (k > 0) {
+            int parent = (k - 1) >> 1;
+            if (!before(i, heap[parent])) {
+                break;
+            }
+            heap[k] = heap[parent];
+            k = parent;
+        }
+        heap[k] = i;
+    }
+
+    private void siftDown(int k) {
+        int i = heap[k];
+
+        while (true) {
+            int child = 2 * k + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], i)) {
+                break;
+            }
+            heap[k] = heap[child];
+            k = child;
+        }
+        heap[k] = i;
+    }
+
+    // Heap order, earliest due first, then highest priority, then declaration order
+    private boolean before(int a, int b) {
+        if (dueTicks[a] != dueTicks[b]) {
+            return dueTicks[a] < dueTicks[b];
+        }
+        if (priorities[a] != priorities[b]) {
+            return priorities[a] > priorities[b];
+        }
+        return a < b;
+    }
+
+    /**
+     * @param period Declared period, or 0 for the base period
+     * @return whole number of ticks between runs, at least 1
+     */
+    static int ticksFor(double period, double tickPeriod, double basePeriod) {
+        return (int) Math.max(1, Math.round((period > 0 ? period : basePeriod) / tickPeriod));
+    }
+}
@@ -0,0 +1,514 @@
+package frc.robot.libraries.AutoFramework;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+/**
+ * A command condition built out of time windows and sensor checks,
+ * instead of an opaque lambda. Because the scheduler can see what's
+ * inside, it knows ahead of time when each command could possibly run,
+ * skips the command entirely outside of those times, and can print a
+ * timeline of the auto.
+ *
+ * <pre>
+ * command.declareCondition(
+ *     AutoCondition.between(2, 3).or(AutoCondition.after(8).and(
+ *         AutoCondition.sensorAbove("Arm", arm::getAngle, 45)))
+ * );
+ * </pre>
+ *
+ * <p>Times are in seconds of auto time, and a window includes its start
+ * but not its end, the same as
+ * {@code autoTimePassed(Start) && !autoTimePassed(End)}.
+ *
+ * <p>Conditions are compiled into a flat program the first time they are
+ * used, and evaluating it doesn't allocate. A condition belongs to the
+ * scheduler it was declared in, which supplies the auto time.
+ */
+public abstract class AutoCondition implements BooleanSupplier {
+
+    private AutoCommandScheduler scheduler;
+    private Program program;
+
+    // Subclasses are the node types below
+    private AutoCondition() {}
+
+    /**
+     * @param Start Auto time the condition turns true, in seconds
+     * @param End Auto time the condition turns false again, in seconds
+     * @return condition that is true from Start until End
+     */
+    public static AutoCondition between(double Start, double End) {
+        return new Window(Start, End);
+    }
+
+    /**
+     * @param Start Auto time the condition turns true, in seconds
+     * @return condition that is true for the rest of the auto after Start
+     */
+    public static AutoCondition after(double Start) {
+        return new Window(Start, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * @param End Auto time the condition turns false, in seconds
+     * @return condition that is true from the start of the auto until End
+     */
+    public static AutoCondition before(double End) {
+        return new Window(Double.NEGATIVE_INFINITY, End);
+    }
+
+    /**
+     * @param Name Shown in the printed timeline
+     * @param Sensor Reading to check
+     * @param Threshold Value the reading must be above
+     * @return condition that is true while Sensor reads above Threshold
+     */
+    public static AutoCondition sensorAbove(String Name, DoubleSupplier Sensor, double Threshold) {
+        return new Sensor(Name, Sensor, Threshold, true);
+    }
+
+    /**
+     * @see #sensorAbove(String, DoubleSupplier, double)
+     */
+    public static AutoCondition sensorAbove(DoubleSupplier Sensor, double Threshold) {
+        return sensorAbove("sensor", Sensor, Threshold);
+    }
+
+    /**
+     * @param Name Shown in the printed timeline
+     * @param Sensor Reading to check
+     * @param Threshold Value the reading must be below
+     * @return condition that is true while Sensor reads below Threshold
+     */
+    public static AutoCondition sensorBelow(String Name, DoubleSupplier Sensor, double Threshold) {
+        return new Sensor(Name, Sensor, Threshold, false);
+    }
+
+    /**
+     * @see #sensorBelow(String, DoubleSupplier, double)
+     */
+    public static AutoCondition sensorBelow(DoubleSupplier Sensor, double Threshold) {
+        return sensorBelow("sensor", Sensor, Threshold);
+    }
+
+    /**
+     * Wraps any other check, the scheduler just has to assume it
+     * could be true at any time.
+     *
+     * @param Name Shown in the printed timeline
+     * @param Condition Check to wrap
+     * @return condition that is true while Condition returns true
+     */
+    public static AutoCondition of(String Name, BooleanSupplier Condition) {
+        return new Supplier(Name, Condition);
+    }
+
+    /**
+     * @return condition that is true when this and all of Others are true
+     */
+    public AutoCondition and(AutoCondition... Others) {
+        return new Junction(this, Others, true);
+    }
+
+    /**
+     * @return condition that is true when this or any of Others are true
+     */
+    public AutoCondition or(AutoCondition... Others) {
+        return new Junction(this, Others, false);
+    }
+
+    /**
+     * @return condition that is true when this is false
+     */
+    public AutoCondition not() {
+        return new Not(this);
+    }
+
+    /**
+     * Evaluates the condition at the scheduler's current auto time
+     */
+    @Override
+    public boolean getAsBoolean() {
+        if (scheduler == null) {
+            throw new IllegalStateException(
+                "AutoCondition " + this + " was not declared in an AutoCommandScheduler");
+        }
+
+        return compiled().evaluate(scheduler.AutoTimer.get());
+    }
+
+    /**
+     * Attaches this condition to the scheduler whose auto time it reads
+     *
+     * @return self for chaining
+     */
+    AutoCondition bind(AutoCommandScheduler Scheduler) {
+        if (scheduler == null) {
+            scheduler = Scheduler;
+        }
+
+        return this;
+    }
+
+    AutoCommandScheduler getScheduler() {
+        return scheduler;
+    }
+
+    Program compiled() {
+        if (program == null) {
+            program = new Program(this);
+        }
+
+        return program;
+    }
+
+    /**
+     * @return auto times where this condition could be true
+     */
+    abstract double[] mayBeTrue();
+
+    /**
+     * @return auto times where this condition is true no matter what
+     * the sensors read
+     */
+    abstract double[] mustBeTrue();
+
+    abstract void emit(Program program);
+
+    private static class Window extends AutoCondition {
+        final double start, end;
+
+        Window(double Start, double End) {
+            start = Start;
+            end = End;
+        }
+
+        @Override
+        double[] mayBeTrue() {
+            return TimeIntervals.of(start, end);
+        }
+
+        @Override
+        double[] mustBeTrue() {
+            return TimeIntervals.of(start, end);
+        }
+
+        @Override
+        void emit(Program program) {
+            program.op(Program.TIME, program.constant(start), program.constant(end));
+        }
+
+        @Override
+        public String toString() {
+            if (end == Double.POSITIVE_INFINITY) {
+                return "after(" + format(start) + ")";
+            }
+            if (start == Double.NEGATIVE_INFINITY) {
+                return "before(" + format(end) + ")";
+            }
+            return "between(" + format(start) + ", " + format(end) + ")";
+        }
+    }
+
+    private static class Sensor extends AutoCondition {
+        final String name;
+        final DoubleSupplier sensor;
+        final double threshold;
+        final boolean above;
+
+        Sensor(String Name, DoubleSupplier Sensor, double Threshold, boolean Above) {
+            name = Name;
+            sensor = Sensor;
+            threshold = Threshold;
+            above = Above;
+        }
+
+        @Override
+        double[] mayBeTrue() {
+            return TimeIntervals.ALWAYS;
+        }
+
+        @Override
+        double[] mustBeTrue() {
+            return TimeIntervals.NONE;
+        }
+
+        @Override
+        void emit(Program program) {
+            program.op(above ? Program.ABOVE : Program.BELOW,
+                program.sensor(sensor), program.constant(threshold));
+        }
+
+        @Override
+        public String toString() {
+            return (above ? "sensorAbove(" : "sensorBelow(") + name + ", " + format(threshold) + ")";
+        }
+    }
+
+    private static class Supplier extends AutoCondition {
+        final String name;
+        final BooleanSupplier supplier;
+
+        Supplier(String Name, BooleanSupplier Supplier) {
+            name = Name;
+            supplier = Supplier;
+        }
+
+        @Override
+        double[] mayBeTrue() {
+            return TimeIntervals.ALWAYS;
+        }
+
+        @Override
+        double[] mustBeTrue() {
+            return TimeIntervals.NONE;
+        }
+
+        @Override
+        void emit(Program program) {
+            program.op(Program.SUPPLIER, program.supplier(supplier), 0);
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private static class Junction extends AutoCondition {
+        final AutoCondition[] terms;
+        final boolean and;
+
+        Junction(AutoCondition first, AutoCondition[] others, boolean And) {
+            terms = new AutoCondition[others.length + 1];
+            terms[0] = first;
+            System.arraycopy(others, 0, terms, 1, others.length);
+            and = And;
+        }
+
+        @Override
+        double[] mayBeTrue() {
+            double[] times = terms[0].mayBeTrue();
+            for (int i = 1; i < terms.length; i++) {
+                times = and
+                    ? TimeIntervals.intersect(times, terms[i].mayBeTrue())
+                    : TimeIntervals.union(times, terms[i].mayBeTrue());
+            }
+            return times;
+        }
+
+        @Override
+        double[] mustBeTrue() {
+            double[] times = terms[0].mustBeTrue();
+            for (int i = 1; i < terms.length; i++) {
+                times = and
+                    ? TimeIntervals.intersect(times, terms[i].mustBeTrue())
+                    : TimeIntervals.union(times, terms[i].mustBeTrue());
+            }
+            return times;
+        }
+
+        @Override
+        void emit(Program program) {
+            // Short circuit: leave the deciding value on the stack and jump past the rest
+            List<Integer> jumps = new ArrayList<Integer>();
+
+            terms[0].emit(program);
+            for (int i = 1; i < terms.length; i++) {
+                jumps.add(program.op(and ? Program.JUMP_FALSE : Program.JUMP_TRUE, 0, 0));
+                program.op(Program.POP, 0, 0);
+                terms[i].emit(program);
+            }
+
+            for (int jump : jumps) {
+                program.patch(jump);
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("(");
+            for (int i = 0; i < terms.length; i++) {
+                if (i > 0) {
+                    text.append(and ? " and " : " or ");
+                }
+                text.append(terms[i]);
+            }
+            return text.append(')').toString();
+        }
+    }
+
+    private static class Not extends AutoCondition {
+        final AutoCondition term;
+
+        Not(AutoCondition Term) {
+            term = Term;
+        }
+
+        @Override
+        double[] mayBeTrue() {
+            return TimeIntervals.complement(term.mustBeTrue());
+        }
+
+        @Override
+        double[] mustBeTrue() {
+            return TimeIntervals.complement(term.mayBeTrue());
+        }
+
+        @Override
+        void emit(Program program) {
+            term.emit(program);
+            program.op(Program.NOT, 0, 0);
+        }
+
+        @Override
+        public String toString() {
+            return "not " + term;
+        }
+    }
+
+    static String format(double seconds) {
+        return String.format(Locale.US, "%.2f", seconds);
+    }
+
+    /**
+     * A condition flattened into a list of stack machine instructions,
+     * three ints each: opcode and two operands.
+     */
+    static final class Program {
+        static final int TIME = 0, ABOVE = 1, BELOW = 2, SUPPLIER = 3,
+            NOT = 4, POP = 5, JUMP_FALSE = 6, JUMP_TRUE = 7;
+
+        private int[] code = new int[24];
+        private int length = 0;
+        private final List<Double> constantList = new ArrayList<Double>();
+        private final List<DoubleSupplier> sensorList = new ArrayList<DoubleSupplier>();
+        private final List<BooleanSupplier> supplierList = new ArrayList<BooleanSupplier>();
+
+        private final double[] constants;
+        private final DoubleSupplier[] sensors;
+        private final BooleanSupplier[] suppliers;
+        private final boolean[] stack;
+
+        /**
+         * Auto times where the condition could be true, and whether
+         * those are exactly the times it is true (nothing but time windows)
+         */
+        final double[] mayBeTrue;
+        final boolean timeOnly;
+
+        Program(AutoCondition condition) {
+            condition.emit(this);
+            code = Arrays.copyOf(code, length);
+
+            constants = new double[constantList.size()];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = constantList.get(i);
+            }
+            sensors = sensorList.toArray(new DoubleSupplier[0]);
+            suppliers = supplierList.toArray(new BooleanSupplier[0]);
+
+            // Every leaf pushes one value, so that's the deepest it gets
+            stack = new boolean[Math.max(1, leafCount())];
+
+            mayBeTrue = condition.mayBeTrue();
+            timeOnly = Arrays.equals(mayBeTrue, condition.mustBeTrue());
+        }
+
+        boolean evaluate(double time) {
+            final int[] code = this.code;
+            final boolean[] stack = this.stack;
+            int sp = 0, pc = 0;
+
+            while (pc < code.length) {
+                int a = code[pc + 1], b = code[pc + 2];
+
+                switch (code[pc]) {
+                    case TIME:
+                        stack[sp++] = time >= constants[a] && time < constants[b];
+                        break;
+                    case ABOVE:
+                        stack[sp++] = sensors[a].getAsDouble() > constants[b];
+                        break;
+                    case BELOW:
+                        stack[sp++] = sensors[a].getAsDouble() < constants[b];
+                        break;
+                    case SUPPLIER:
+                        stack[sp++] = suppliers[a].getAsBoolean();
+                        break;
+                    case NOT:
+                        stack[sp - 1] = !stack[sp - 1];
+                        break;
+                    case POP:
+                        sp--;
+                        break;
+                    case JUMP_FALSE:
+                        if (!stack[sp - 1]) {
+                            pc = a;
+                            continue;
+                        }
+                        break;
+                    case JUMP_TRUE:
+                        if (stack[sp - 1]) {
+                            pc = a;
+                            continue;
+                        }
+                        break;
+                }
+
+                pc += 3;
+            }
+
+            return stack[0];
+        }
+
+        // Builder side, only used while compiling
+
+        int op(int opcode, int a, int b) {
+            if (length + 3 > code.length) {
+                code = Arrays.copyOf(code, code.length * 2);
+            }
+            code[length] = opcode;
+            code[length + 1] = a;
+            code[length + 2] = b;
+            length += 3;
+
+            return length - 3;
+        }
+
+        // Points a jump at the current end of the program
+        void patch(int jump) {
+            code[jump + 1] = length;
+        }
+
+        int constant(double value) {
+            constantList.add(value);
+            return constantList.size() - 1;
+        }
+
+        int sensor(DoubleSupplier sensor) {
+            sensorList.add(sensor);
+            return sensorList.size() - 1;
+        }
+
+        int supplier(BooleanSupplier supplier) {
+            supplierList.add(supplier);
+            return supplierList.size() - 1;
+        }
+
+        private int leafCount() {
+            int leaves = 0;
+            for (int pc = 0; pc < code.length; pc += 3) {
+                if (code[pc] <= SUPPLIER) {
+                    leaves++;
+                }
+            }
+            return leaves;
+        }
+    }
+}
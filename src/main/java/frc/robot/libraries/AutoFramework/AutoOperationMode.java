@@ -1,9 +1,38 @@
 package frc.robot.libraries.AutoFramework;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Operation modes and tags for {@link AutoCommandBase}.
+ * 
+ * <p>The scheduler keeps track of each command's condition from the last
+ * pass, and gives modes and tags explicit edges: the condition rising
+ * (false to true) or falling (true to false). The first pass of an auto
+ * always counts as an edge, rising or falling depending on the
+ * condition. Built in modes and {@link EdgeTag}s are only called on
+ * those edges (or every pass for WhileTrue/WhileFalse); anything else is
+ * polled every pass as before. That includes subclasses of the built in
+ * modes and tags that override TruePoll or FalsePoll.
+ */
 public class AutoOperationMode {
+
+    /**
+     * When a mode runs its command, in terms of condition edges
+     */
+    public enum Trigger {
+        /** Every pass the condition is true */
+        WHILE_TRUE,
+        /** Every pass the condition is false */
+        WHILE_FALSE,
+        /** Once, on the pass the condition turns true */
+        ON_RISING,
+        /** Once, on the pass the condition turns false */
+        ON_FALLING,
+        /** Whatever TruePoll and FalsePoll say, called every pass */
+        POLLED
+    }
     
     /**
      * Defines how the command should be ran when its
@@ -22,6 +51,41 @@ public class AutoOperationMode {
          * @return true if command should be ran
          */
         protected abstract boolean FalsePoll();
+
+        /**
+         * Lets the scheduler stop polling a command whose time window
+         * has closed. Only return true if, after FalsePoll has been
+         * called once, calling it again returns false and changes
+         * nothing until TruePoll is called.
+         * 
+         * @return true if repeated false polls are no-ops
+         */
+        protected boolean isIdleWhileFalse() {return false;}
+
+        /**
+         * Lets the scheduler run the mode off condition edges instead of
+         * calling TruePoll and FalsePoll. Custom modes should leave this
+         * as {@link Trigger#POLLED}.
+         * 
+         * @return when this mode runs its command
+         */
+        protected Trigger getTrigger() {return Trigger.POLLED;}
+    }
+
+    /**
+     * @return true if a subclass between the object's class and BuiltIn
+     * overrides TruePoll or FalsePoll, so they have to be polled rather
+     * than going off the condition edges
+     */
+    static boolean overridesPolls(Object Mode, Class<?> BuiltIn) {
+        for (Class<?> c = Mode.getClass(); c != BuiltIn && c != null; c = c.getSuperclass()) {
+            for (Method method : c.getDeclaredMethods()) {
+                if (method.getName().equals("TruePoll") || method.getName().equals("FalsePoll")) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     // Quite self explanatory
@@ -34,6 +98,12 @@ public class AutoOperationMode {
         protected boolean TruePoll() {return true;}
         @Override
         protected boolean FalsePoll() {return false;}
+        @Override
+        protected boolean isIdleWhileFalse() {return !overridesPolls(this, WhileTrue.class);}
+        @Override
+        protected Trigger getTrigger() {
+            return overridesPolls(this, WhileTrue.class) ? Trigger.POLLED : Trigger.WHILE_TRUE;
+        }
     }
 
     /**
@@ -44,10 +114,14 @@ public class AutoOperationMode {
         protected boolean TruePoll() {return false;}
         @Override
         protected boolean FalsePoll() {return true;}
+        @Override
+        protected Trigger getTrigger() {
+            return overridesPolls(this, WhileFalse.class) ? Trigger.POLLED : Trigger.WHILE_FALSE;
+        }
     }
 
     /**
-     * Runs the command once when its condition is true
+     * Runs the command once when its condition turns true
      */
     public static class OnTrue extends OperationMode {
         boolean lock = false;
@@ -62,10 +136,16 @@ public class AutoOperationMode {
         protected boolean FalsePoll() {
             return lock = false;
         }
+        @Override
+        protected boolean isIdleWhileFalse() {return !overridesPolls(this, OnTrue.class);}
+        @Override
+        protected Trigger getTrigger() {
+            return overridesPolls(this, OnTrue.class) ? Trigger.POLLED : Trigger.ON_RISING;
+        }
     }
 
     /**
-     * Runs the command once when its condition is false
+     * Runs the command once when its condition turns false
      */
     public static class OnFalse extends OperationMode {
         boolean lock = false;
@@ -80,6 +160,12 @@ public class AutoOperationMode {
             lock = true;
             return !prev;
         }
+        @Override
+        protected boolean isIdleWhileFalse() {return !overridesPolls(this, OnFalse.class);}
+        @Override
+        protected Trigger getTrigger() {
+            return overridesPolls(this, OnFalse.class) ? Trigger.POLLED : Trigger.ON_FALLING;
+        }
     }
 
     /**
@@ -95,18 +181,78 @@ public class AutoOperationMode {
          * Repeatedly called while condition returns false
          */
         protected abstract void FalsePoll();
+
+        /**
+         * Lets the scheduler stop polling a command whose time window
+         * has closed. Only return true if, after FalsePoll has been
+         * called once, calling it again changes nothing until TruePoll
+         * is called.
+         * 
+         * @return true if repeated false polls are no-ops
+         */
+        protected boolean isIdleWhileFalse() {return false;}
+
+        /**
+         * Called when the scheduler starts an auto, before the first pass
+         */
+        protected void onAutoStart() {}
+    }
+
+    /**
+     * A tag that only cares about the condition changing. The scheduler
+     * calls onRising and onFalling directly on the edges it tracks;
+     * TruePoll and FalsePoll do their own edge detection for anything
+     * still polling the tag. Subclasses that override TruePoll or
+     * FalsePoll are polled every pass instead.
+     */
+    public static abstract class EdgeTag extends OperationTag {
+        private boolean seen = false, last = false;
+
+        /**
+         * Called once when the condition turns true, or on the first
+         * pass if it starts out true
+         */
+        protected abstract void onRising();
+        /**
+         * Called once when the condition turns false, or on the first
+         * pass if it starts out false
+         */
+        protected abstract void onFalling();
+
+        @Override
+        protected void TruePoll() {
+            if (!seen || !last) {
+                seen = last = true;
+                onRising();
+            }
+        }
+
+        @Override
+        protected void FalsePoll() {
+            if (!seen || last) {
+                seen = true;
+                last = false;
+                onFalling();
+            }
+        }
+
+        @Override
+        protected boolean isIdleWhileFalse() {return !overridesPolls(this, EdgeTag.class);}
     }
 
     /**
-     * Disables default command operation while command is running
+     * Disables default command operation while command is running.
+     * Several of these can overlap, the default command comes back once
+     * none of them are holding it.
+     * 
+     * @see AutoCommandScheduler#pauseDefaultCommand()
      */
-    public static class PauseDefaultCommand extends OperationTag {
-        boolean tlock = false, flock = false;
+    public static class PauseDefaultCommand extends EdgeTag {
 
         private final AutoCommandScheduler thisCommandScheduler;
 
-        // Not null to avoid exception!
-        private AutoCommandBase pausedDefaultCommand = new InstantAutoCommand();
+        // Whether this tag is one of the pauses currently held
+        private boolean holding = false;
 
         /**
          * Pauses the scheduler while this command is running
@@ -115,53 +261,29 @@ public class AutoOperationMode {
          */
         public PauseDefaultCommand(AutoCommandScheduler Scheduler) {
             thisCommandScheduler = Scheduler;
-
-            // Move current default command into the paused slot for now.
-            pausedDefaultCommand = Scheduler.getDefaultCommand();
         }
 
         @Override
-        protected void TruePoll() {
-
-            flock = false;
-
-            if (!tlock) { // Inline run once operation
-
-                // Grab default command set
-                pausedDefaultCommand = thisCommandScheduler.getDefaultCommand();
-
-                // End the default command
-                thisCommandScheduler.getDefaultCommand().end(false);
-
-                // Empty the default command set in the scheduler
-                thisCommandScheduler.setDefaultCommand(new InstantAutoCommand());
-
-                // Pause default command timer
-                thisCommandScheduler.DefaultCommandTimer.stop();
+        protected void onAutoStart() {
+            // The scheduler starts every auto unpaused
+            holding = false;
+        }
 
-                tlock = true;
+        @Override
+        protected void onRising() {
+            if (!holding) {
+                holding = true;
+                thisCommandScheduler.pauseDefaultCommand();
             }
         }
 
         @Override
-        protected void FalsePoll() {
-
-            tlock = false;
-
-            if (!flock) {
-
-                // Add back default commands
-                thisCommandScheduler.setDefaultCommand(pausedDefaultCommand);
-
-                // Start the default command
-                pausedDefaultCommand.initialize();
-
-                // Unpause default command timer
-                thisCommandScheduler.DefaultCommandTimer.start();
-
-                flock = true;
+        protected void onFalling() {
+            // Nothing to give back if we never paused it
+            if (holding) {
+                holding = false;
+                thisCommandScheduler.resumeDefaultCommand();
             }
         }
-        
     }
 }
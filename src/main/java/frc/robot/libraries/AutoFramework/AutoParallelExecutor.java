@@ -0,0 +1,306 @@
+package frc.robot.libraries.AutoFramework;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+
+/**
+ * Runs the execute() and end() calls of a scheduler pass on a small
+ * worker pool. Commands are split into lanes: commands that share a
+ * subsystem go in the same lane and run one after another, different
+ * lanes run at the same time. Commands without requirements could touch
+ * anything, so they stay on the scheduler's own thread and run before
+ * the workers are released, never alongside them.
+ *
+ * <p>Conditions, modes and tags are still handled on the scheduler
+ * thread; this only gets the queued calls and runs them between two
+ * barriers, so the pass doesn't move on until every lane is done.
+ */
+final class AutoParallelExecutor {
+
+    static final byte EXECUTE = 1, END = 2;
+
+    private final AutoCommandBase[] commands;
+
+    // Lane 0 is the scheduler thread
+    private final int[] laneOf;
+    private final int[][] laneCommands;
+    private final byte[][] laneActions;
+    private final int[] laneCounts;
+    private final long[] laneNanos;
+
+    private final Thread[] workers;
+    private final CyclicBarrier start, finish;
+    private final AtomicInteger nextLane = new AtomicInteger();
+    private int queuedOffThread = 0;
+    private volatile boolean running = true;
+    private volatile RuntimeException failure;
+
+    private long lastParallelNanos = 0, lastSerialNanos = 0;
+
+    // Null unless profiling, each lane only writes its own commands' slots
+    private final AutoProfiler profiler;
+
+    private AutoParallelExecutor(AutoCommandBase[] Commands, int[] LaneOf, int laneCount, int workerCount,
+        AutoProfiler Profiler) {
+        commands = Commands;
+        laneOf = LaneOf;
+        profiler = Profiler;
+
+        int[] sizes = new int[laneCount];
+        for (int lane : laneOf) {
+            sizes[lane]++;
+        }
+
+        laneCommands = new int[laneCount][];
+        laneActions = new byte[laneCount][];
+        for (int l = 0; l < laneCount; l++) {
+            laneCommands[l] = new int[sizes[l]];
+            laneActions[l] = new byte[sizes[l]];
+        }
+        laneCounts = new int[laneCount];
+        laneNanos = new long[laneCount];
+
+        // No point having more workers than lanes to hand out
+        workerCount = Math.min(workerCount, laneCount - 1);
+
+        start = new CyclicBarrier(workerCount + 1);
+        finish = new CyclicBarrier(workerCount + 1);
+
+        workers = new Thread[workerCount];
+        for (int w = 0; w < workerCount; w++) {
+            workers[w] = new Thread(this::work, "AutoWorker-" + w);
+            workers[w].setDaemon(true);
+            workers[w].start();
+        }
+    }
+
+    /**
+     * Splits the commands into lanes by requirement. Two commands that
+     * share a subsystem must never be able to run at the same time, which
+     * the scheduler only knows for {@link AutoCondition} windows of
+     * commands that run while their condition is true.
+     *
+     * @return the executor, or null (with an error on the driver station)
+     * if two commands could fight over a subsystem
+     */
+    static AutoParallelExecutor create(AutoCommandTable index, int workerCount, AutoProfiler profiler) {
+        int count = index.size();
+
+        // Union-find over commands that share a subsystem
+        int[] parent = new int[count];
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+        }
+
+        Map<Subsystem, List<Integer>> users = new HashMap<Subsystem, List<Integer>>();
+        AutoCommandBase[] commands = new AutoCommandBase[count];
+
+        for (int i = 0; i < count; i++) {
+            commands[i] = index.command(i);
+
+            for (Subsystem subsystem : commands[i].getRequirements()) {
+                List<Integer> others = users.computeIfAbsent(subsystem, s -> new ArrayList<Integer>());
+
+                for (int j : others) {
+                    if (TimeIntervals.intersect(runWindow(index, i), runWindow(index, j)).length > 0) {
+                        DriverStation.reportError(
+                            "AutoCommandScheduler: " + commands[j].getName() + " and " + commands[i].getName()
+                            + " both require " + subsystem + " and could run at the same time, running auto serially",
+                            false);
+                        return null;
+                    }
+
+                    parent[find(parent, i)] = find(parent, j);
+                }
+                others.add(i);
+            }
+        }
+
+        // Number the lanes, commands without requirements go in lane 0
+        int[] laneOf = new int[count];
+        int[] laneOfRoot = new int[count];
+        int laneCount = 1;
+
+        for (int i = 0; i < count; i++) {
+            if (commands[i].getRequirements().isEmpty()) {
+                laneOf[i] = 0;
+                continue;
+            }
+
+            int root = find(parent, i);
+            if (laneOfRoot[root] == 0) {
+                laneOfRoot[root] = laneCount++;
+            }
+            laneOf[i] = laneOfRoot[root];
+        }
+
+        return new AutoParallelExecutor(commands, laneOf, laneCount, workerCount, profiler);
+    }
+
+    // Times a command could be executing; other modes run while false too
+    private static double[] runWindow(AutoCommandTable index, int i) {
+        AutoOperationMode.Trigger trigger = index.trigger(i);
+
+        if (trigger == AutoOperationMode.Trigger.WHILE_TRUE || trigger == AutoOperationMode.Trigger.ON_RISING) {
+            return index.window(i);
+        }
+
+        return TimeIntervals.ALWAYS;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            i = parent[i] = parent[parent[i]];
+        }
+        return i;
+    }
+
+    /**
+     * Queues a call for this pass
+     *
+     * @param i Index of the command
+     * @param action {@link #EXECUTE} or {@link #END}
+     */
+    void queue(int i, byte action) {
+        int lane = laneOf[i];
+        int k = laneCounts[lane]++;
+
+        laneCommands[lane][k] = i;
+        laneActions[lane][k] = action;
+
+        if (lane != 0) {
+            queuedOffThread++;
+        }
+    }
+
+    /**
+     * Runs everything queued this pass and waits for it to finish
+     */
+    void run() {
+        long begin = System.nanoTime();
+
+        // Lane 0 on its own first, it may touch anything a worker lane does
+        runLane(0);
+
+        if (queuedOffThread > 0) {
+            nextLane.set(1);
+            await(start);
+
+            // Pitch in on the worker lanes
+            for (int l = nextLane.getAndIncrement(); l < laneCounts.length; l = nextLane.getAndIncrement()) {
+                runLane(l);
+            }
+
+            await(finish);
+        }
+        queuedOffThread = 0;
+
+        lastParallelNanos = System.nanoTime() - begin;
+        lastSerialNanos = 0;
+        for (int l = 0; l < laneCounts.length; l++) {
+            if (laneCounts[l] > 0) {
+                lastSerialNanos += laneNanos[l];
+            }
+            laneCounts[l] = 0;
+        }
+
+        RuntimeException error = failure;
+        if (error != null) {
+            failure = null;
+            throw error;
+        }
+    }
+
+    /**
+     * @return wall time of the last parallel pass, in nanoseconds
+     */
+    long getLastParallelNanos() {
+        return lastParallelNanos;
+    }
+
+    /**
+     * @return summed time of every lane in the last pass, roughly what
+     * it would have taken serially, in nanoseconds
+     */
+    long getLastSerialNanos() {
+        return lastSerialNanos;
+    }
+
+    int getLaneCount() {
+        return laneCounts.length;
+    }
+
+    /**
+     * Lets the workers exit
+     */
+    void close() {
+        running = false;
+        await(start);
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                start.await();
+                if (!running) {
+                    return;
+                }
+
+                for (int l = nextLane.getAndIncrement(); l < laneCounts.length; l = nextLane.getAndIncrement()) {
+                    runLane(l);
+                }
+
+                finish.await();
+            }
+        } catch (InterruptedException | BrokenBarrierException e) {
+            // Scheduler is gone, nothing left to do
+        }
+    }
+
+    private void runLane(int lane) {
+        long begin = System.nanoTime();
+
+        int[] indices = laneCommands[lane];
+        byte[] actions = laneActions[lane];
+
+        try {
+            for (int k = 0; k < laneCounts[lane]; k++) {
+                long commandStart = profiler != null ? System.nanoTime() : 0;
+
+                if (actions[k] == EXECUTE) {
+                    commands[indices[k]].execute();
+                } else {
+                    commands[indices[k]].end(false);
+                }
+
+                if (profiler != null) {
+                    profiler.record(profiler.commandSlot(indices[k]), System.nanoTime() - commandStart);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Thrown again on the scheduler thread
+            failure = e;
+        }
+
+        laneNanos[lane] = System.nanoTime() - begin;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for auto workers", e);
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException("Auto worker pool broke", e);
+        }
+    }
+}
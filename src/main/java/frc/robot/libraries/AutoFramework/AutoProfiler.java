@@ -0,0 +1,226 @@
+package frc.robot.libraries.AutoFramework;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Timing histograms for everything the scheduler calls: each command's
+ * execute()/end(), its condition, each of its tags, and the default
+ * command. Everything is allocated up front, recording is just a few
+ * array writes.
+ *
+ * <p>Histogram buckets are powers of two split into four, so p99 is
+ * accurate to within about 25%. Min, max and average are exact.
+ *
+ * <p>Recording happens during passes, which may be on the poll thread.
+ * {@link #publish()} and {@link #report()} read a copy taken by
+ * {@link #snapshot()}, which must be called under the same lock as the
+ * passes; reading the live longs from another thread could tear on the
+ * 32-bit roboRIO.
+ */
+final class AutoProfiler {
+
+    // 4 sub-buckets per power of two, up to ~1 second
+    private static final int kSubBits = 2;
+    private static final int kBuckets = 31 << kSubBits;
+
+    private final String[] names;
+    private final int conditionBase, tagBase;
+    private final int defaultSlot;
+
+    private final int[] counts;
+    private final long[] min, max, sum;
+    private final int[] samples;
+
+    // Copies of the above, read by publish and report
+    private final int[] snapCounts;
+    private final long[] snapMin, snapMax, snapSum;
+    private final int[] snapSamples;
+
+    // Precomputed so publishing doesn't build strings
+    private final String[] minKeys, avgKeys, p99Keys, maxKeys;
+
+    /**
+     * One slot per command, then one per condition, then one per tag in
+     * table order, then the default command
+     */
+    AutoProfiler(AutoCommandTable table) {
+        int count = table.size();
+
+        int slots = 2 * count + table.tagCount() + 1;
+        names = new String[slots];
+        conditionBase = count;
+        tagBase = 2 * count;
+
+        for (int i = 0; i < count; i++) {
+            String name = table.command(i).getName() + "#" + i;
+
+            names[i] = name;
+            names[conditionBase + i] = name + "/condition";
+
+            for (int t = table.tagStart(i); t < table.tagEnd(i); t++) {
+                names[tagBase + t] = name + "/" + table.tag(t).getClass().getSimpleName();
+            }
+        }
+        defaultSlot = slots - 1;
+        names[defaultSlot] = "default";
+
+        counts = new int[slots * kBuckets];
+        min = new long[slots];
+        max = new long[slots];
+        sum = new long[slots];
+        samples = new int[slots];
+        Arrays.fill(min, Long.MAX_VALUE);
+
+        snapCounts = new int[counts.length];
+        snapMin = new long[slots];
+        snapMax = new long[slots];
+        snapSum = new long[slots];
+        snapSamples = new int[slots];
+
+        minKeys = new String[slots];
+        avgKeys = new String[slots];
+        p99Keys = new String[slots];
+        maxKeys = new String[slots];
+        for (int s = 0; s < slots; s++) {
+            String prefix = "AutoProfiler/" + names[s] + "/";
+            minKeys[s] = prefix + "Min us";
+            avgKeys[s] = prefix + "Avg us";
+            p99Keys[s] = prefix + "P99 us";
+            maxKeys[s] = prefix + "Max us";
+        }
+    }
+
+    int commandSlot(int i) {
+        return i;
+    }
+
+    int conditionSlot(int i) {
+        return conditionBase + i;
+    }
+
+    /**
+     * @param t Flat tag index from the command table
+     */
+    int tagSlot(int t) {
+        return tagBase + t;
+    }
+
+    int defaultSlot() {
+        return defaultSlot;
+    }
+
+    void record(int slot, long nanos) {
+        counts[slot * kBuckets + bucket(nanos)]++;
+        samples[slot]++;
+        sum[slot] += nanos;
+        if (nanos < min[slot]) {
+            min[slot] = nanos;
+        }
+        if (nanos > max[slot]) {
+            max[slot] = nanos;
+        }
+    }
+
+    /**
+     * Copies everything recorded so far for {@link #publish()} and
+     * {@link #report()}. Call with the scheduler locked.
+     */
+    void snapshot() {
+        System.arraycopy(counts, 0, snapCounts, 0, counts.length);
+        System.arraycopy(min, 0, snapMin, 0, min.length);
+        System.arraycopy(max, 0, snapMax, 0, max.length);
+        System.arraycopy(sum, 0, snapSum, 0, sum.length);
+        System.arraycopy(samples, 0, snapSamples, 0, samples.length);
+    }
+
+    /**
+     * @return estimated 99th percentile of a slot as of the last
+     * snapshot, in nanoseconds
+     */
+    long p99(int slot) {
+        int n = snapSamples[slot];
+        if (n == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(n * 0.99);
+        long seen = 0;
+        int base = slot * kBuckets;
+
+        for (int b = 0; b < kBuckets; b++) {
+            seen += snapCounts[base + b];
+            if (seen >= target) {
+                return Math.min(upperBound(b), snapMax[slot]);
+            }
+        }
+
+        return snapMax[slot];
+    }
+
+    /**
+     * Puts every slot that had run by the last snapshot on the dashboard
+     */
+    void publish() {
+        for (int s = 0; s < names.length; s++) {
+            if (snapSamples[s] == 0) {
+                continue;
+            }
+            SmartDashboard.putNumber(minKeys[s], snapMin[s] / 1e3);
+            SmartDashboard.putNumber(avgKeys[s], snapSum[s] / 1e3 / snapSamples[s]);
+            SmartDashboard.putNumber(p99Keys[s], p99(s) / 1e3);
+            SmartDashboard.putNumber(maxKeys[s], snapMax[s] / 1e3);
+        }
+    }
+
+    /**
+     * @return table of every slot that had run by the last snapshot,
+     * worst max first
+     */
+    String report() {
+        Integer[] order = new Integer[names.length];
+        for (int s = 0; s < order.length; s++) {
+            order[s] = s;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(snapSamples[b] == 0 ? -1 : snapMax[b], snapSamples[a] == 0 ? -1 : snapMax[a]));
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format(Locale.US, "%-48s %8s %9s %9s %9s %9s%n",
+            "Auto profile", "calls", "min us", "avg us", "p99 us", "max us"));
+
+        for (int s : order) {
+            if (snapSamples[s] == 0) {
+                continue;
+            }
+            text.append(String.format(Locale.US, "%-48s %8d %9.1f %9.1f %9.1f %9.1f%n",
+                names[s], snapSamples[s], snapMin[s] / 1e3, snapSum[s] / 1e3 / snapSamples[s], p99(s) / 1e3, snapMax[s] / 1e3));
+        }
+
+        return text.toString();
+    }
+
+    // Power of two, plus the next kSubBits bits below it
+    private static int bucket(long nanos) {
+        if (nanos < (1 << kSubBits)) {
+            return (int) Math.max(nanos, 0);
+        }
+
+        int msb = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (msb - kSubBits)) & ((1 << kSubBits) - 1);
+
+        return Math.min(((msb - kSubBits + 1) << kSubBits) + sub, kBuckets - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < (1 << kSubBits)) {
+            return bucket;
+        }
+
+        int msb = (bucket >> kSubBits) + kSubBits - 1;
+        int sub = bucket & ((1 << kSubBits) - 1);
+
+        return ((long) ((1 << kSubBits) + sub + 1) << (msb - kSubBits)) - 1;
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.libraries.AutoFramework;
+
+import frc.robot.libraries.SimulatedClock;
+
+/**
+ * Runs a whole auto on simulated time, one pass per scheduler tick,
+ * without waiting between them. A 15 second auto takes however long its
+ * commands take to run, not 15 seconds, and takes the same passes at the
+ * same times every run, so autos can be checked from unit tests.
+ * 
+ * <p>Anything else timed in the auto (motor groups, PID controllers)
+ * should be given {@link #getClock()} too. Subsystem and sensor
+ * simulation can be stepped from {@link #setOnStep(Runnable)}.
+ * 
+ * <pre>{@code
+ * AutoSimulationRunner runner = new AutoSimulationRunner(autoScheduler);
+ * macroGroup.setClock(runner.getClock());
+ * runner.setOnStep(() -> driveSim.update(autoScheduler.getTickPeriod()));
+ * runner.run();
+ * }</pre>
+ */
+public class AutoSimulationRunner {
+
+    private final AutoCommandScheduler scheduler;
+    private final SimulatedClock clock;
+
+    private Runnable onStep = () -> {};
+
+    /**
+     * @param Scheduler Auto to run, switched over to a new simulated clock
+     */
+    public AutoSimulationRunner(AutoCommandScheduler Scheduler) {
+        this(Scheduler, new SimulatedClock());
+    }
+
+    /**
+     * @param Scheduler Auto to run, switched over to Clock
+     * @param Clock Simulated clock to step
+     */
+    public AutoSimulationRunner(AutoCommandScheduler Scheduler, SimulatedClock Clock) {
+        scheduler = Scheduler;
+        clock = Clock;
+
+        scheduler.setClock(clock);
+    }
+
+    /**
+     * @return clock the auto runs on
+     */
+    public SimulatedClock getClock() {
+        return clock;
+    }
+
+    /**
+     * @param Step Called after every pass, before time moves on
+     * 
+     * @return self for chaining
+     */
+    public AutoSimulationRunner setOnStep(Runnable Step) {
+        onStep = Step;
+
+        return this;
+    }
+
+    /**
+     * Runs the auto from start to end. Time is set from the pass number
+     * rather than added up, so a 15 second auto at 20ms is always exactly
+     * 750 passes.
+     * 
+     * @return number of passes run
+     */
+    public long run() {
+        scheduler.initialize();
+
+        // Period is only known once the scheduler has built its table
+        double period = scheduler.getTickPeriod();
+        long passes = (long) Math.ceil(scheduler.getAutoLength() / period - 1e-9);
+        double start = clock.getSeconds();
+
+        boolean completed = false;
+        try {
+            for (long pass = 0; pass < passes; pass++) {
+                clock.set(start + pass * period);
+                scheduler.pollCommands();
+                onStep.run();
+            }
+            clock.set(start + passes * period);
+            completed = true;
+        } finally {
+            scheduler.end(!completed);
+        }
+
+        return passes;
+    }
+}
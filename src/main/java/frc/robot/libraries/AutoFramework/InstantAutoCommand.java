@@ -5,6 +5,9 @@
 package frc.robot.libraries.AutoFramework;
 
 public class InstantAutoCommand extends AutoCommandBase {
+  /** Shared do-nothing command, for placeholders that shouldn't allocate. */
+  public static final InstantAutoCommand kNoOp = new InstantAutoCommand();
+
   /** Creates a new InstantCommand for autonomous use. */
   public InstantAutoCommand() {}
 
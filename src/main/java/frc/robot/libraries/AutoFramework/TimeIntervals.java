@@ -0,0 +1,86 @@
+package frc.robot.libraries.AutoFramework;
+
+import java.util.Arrays;
+
+/**
+ * Sets of auto times, stored as sorted, disjoint half-open intervals
+ * {@code [start, end)} packed into a flat array
+ * {@code {start0, end0, start1, end1, ...}}. Infinite bounds are allowed.
+ */
+final class TimeIntervals {
+
+    static final double[] NONE = {};
+    static final double[] ALWAYS = {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+
+    private TimeIntervals() {}
+
+    static double[] of(double start, double end) {
+        return start < end ? new double[] {start, end} : NONE;
+    }
+
+    static double[] union(double[] a, double[] b) {
+        double[] merged = new double[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+
+        while (i < a.length || j < b.length) {
+            double s, e;
+            if (j >= b.length || (i < a.length && a[i] <= b[j])) {
+                s = a[i]; e = a[i + 1]; i += 2;
+            } else {
+                s = b[j]; e = b[j + 1]; j += 2;
+            }
+
+            if (n > 0 && s <= merged[n - 1]) {
+                merged[n - 1] = Math.max(merged[n - 1], e);
+            } else {
+                merged[n++] = s;
+                merged[n++] = e;
+            }
+        }
+
+        return Arrays.copyOf(merged, n);
+    }
+
+    static double[] intersect(double[] a, double[] b) {
+        double[] out = new double[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+
+        while (i < a.length && j < b.length) {
+            double s = Math.max(a[i], b[j]);
+            double e = Math.min(a[i + 1], b[j + 1]);
+            if (s < e) {
+                out[n++] = s;
+                out[n++] = e;
+            }
+
+            // Drop whichever interval ends first
+            if (a[i + 1] < b[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+
+        return Arrays.copyOf(out, n);
+    }
+
+    static double[] complement(double[] a) {
+        double[] out = new double[a.length + 2];
+        double prev = Double.NEGATIVE_INFINITY;
+        int n = 0;
+
+        for (int i = 0; i < a.length; i += 2) {
+            if (a[i] > prev) {
+                out[n++] = prev;
+                out[n++] = a[i];
+            }
+            prev = a[i + 1];
+        }
+        if (prev < Double.POSITIVE_INFINITY) {
+            out[n++] = prev;
+            out[n++] = Double.POSITIVE_INFINITY;
+        }
+
+        return Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,36 @@
+package frc.robot.libraries;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Source of time for the timers in the libraries. On the robot this is
+ * the FPGA clock, same as {@link Timer}. Off the robot a
+ * {@link SimulatedClock} can be swapped in, so autos and macros run on
+ * time that only moves when it is told to.
+ */
+public interface Clock {
+
+    /**
+     * FPGA time, what {@link Timer} uses
+     */
+    Clock kFPGA = Timer::getFPGATimestamp;
+
+    /**
+     * Monotonic JVM time, cheaper to read than the FPGA clock
+     */
+    Clock kSystem = () -> System.nanoTime() * 1e-9;
+
+    /**
+     * @return current time, in seconds. Only differences between
+     * readings mean anything
+     */
+    double getSeconds();
+
+    /**
+     * @return true if time only moves when something advances it, so
+     * nothing should wait on it in real time
+     */
+    default boolean isSimulated() {
+        return false;
+    }
+}
@@ -0,0 +1,100 @@
+package frc.robot.libraries;
+
+/**
+ * Stopwatch with the same methods as WPILib's Timer, but reading a
+ * {@link Clock} that can be swapped out, so the same code runs on
+ * robot time or simulated time.
+ */
+public class ClockTimer {
+
+    private Clock clock;
+
+    private double startTime;
+    private double accumulated = 0;
+    private boolean running = false;
+
+    /**
+     * Timer on the FPGA clock
+     */
+    public ClockTimer() {
+        this(Clock.kFPGA);
+    }
+
+    /**
+     * @param Source Clock to read
+     */
+    public ClockTimer(Clock Source) {
+        clock = Source;
+        startTime = clock.getSeconds();
+    }
+
+    /**
+     * Switches clocks, keeping the time elapsed so far
+     * 
+     * @param Source Clock to read from now on
+     * 
+     * @return self for chaining
+     */
+    public ClockTimer setClock(Clock Source) {
+        double elapsed = get();
+
+        clock = Source;
+        accumulated = elapsed;
+        startTime = clock.getSeconds();
+
+        return this;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * @return seconds elapsed while running since the last reset
+     */
+    public double get() {
+        return running ? accumulated + clock.getSeconds() - startTime : accumulated;
+    }
+
+    /**
+     * Starts counting, does nothing if already running
+     */
+    public void start() {
+        if (!running) {
+            startTime = clock.getSeconds();
+            running = true;
+        }
+    }
+
+    /**
+     * Stops counting, keeping the elapsed time
+     */
+    public void stop() {
+        accumulated = get();
+        running = false;
+    }
+
+    /**
+     * Zeroes the elapsed time without stopping or starting
+     */
+    public void reset() {
+        accumulated = 0;
+        startTime = clock.getSeconds();
+    }
+
+    /**
+     * Zeroes the elapsed time and starts counting
+     */
+    public void restart() {
+        reset();
+        start();
+    }
+
+    /**
+     * @param Seconds
+     * @return true if at least Seconds have elapsed
+     */
+    public boolean hasElapsed(double Seconds) {
+        return get() >= Seconds;
+    }
+}
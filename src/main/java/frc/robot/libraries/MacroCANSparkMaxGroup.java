@@ -1,31 +1,55 @@
 package frc.robot.libraries;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Scanner;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
 
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Filesystem;
-import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+import frc.robot.libraries.MacroFramework.AsyncMacroRecorder;
+import frc.robot.libraries.MacroFramework.InterpolationMode;
+import frc.robot.libraries.MacroFramework.MacroCache;
+import frc.robot.libraries.MacroFramework.MacroCompressedCodec;
+import frc.robot.libraries.MacroFramework.MacroFileFormat;
+import frc.robot.libraries.MacroFramework.MacroFormat;
+import frc.robot.libraries.MacroFramework.MacroFrameSource;
+import frc.robot.libraries.MacroFramework.MacroFrameWriter;
+import frc.robot.libraries.MacroFramework.MacroMotor;
+import frc.robot.libraries.MacroFramework.MacroMotorSnapshot;
+import frc.robot.libraries.MacroFramework.MacroPlayback;
+import frc.robot.libraries.MacroFramework.MappedMacroFile;
+import frc.robot.libraries.MacroFramework.OnboardPositionLoop;
+import frc.robot.libraries.MacroFramework.PlaybackMode;
+import frc.robot.libraries.MacroFramework.SparkMaxMacroMotor;
 
 public class MacroCANSparkMaxGroup {
 
     final static double defaultKP = 0.03, defaultKI = 0, defaultKD = 0;
+    // SparkMax units, duty cycle per rotation and per 1ms loop
+    final static double defaultOnboardKP = 0.1, defaultOnboardKI = 0, defaultOnboardKD = 0;
+
+    // Roughly 10 seconds of frames at the 50hz robot loop rate
+    final static int defaultAsyncCapacity = 512;
+    // Longest endRecord will wait for queued frames to reach the disk
+    final static double endRecordTimeout = 0.25;
+    // Bus voltage to assume when neither the macro nor the motor has one
+    final static double kNominalVoltage = 12;
 
     private final ShuffleboardTab kShuffleboardTab;
     private GenericEntry[] kPositionArr;
+    private final GenericEntry kDroppedFrames, kMaxQueueDepth;
+    private final GenericEntry kTrackingRMS, kTrackingMax;
 
     /**
      * The path in which the macro item will store and read macro files
      */
-    public final String dataPath = Filesystem.getDeployDirectory().getPath();
+    public final String dataPath;
 
     /**
      * File name specified by constructor.
@@ -38,30 +62,95 @@ public class MacroCANSparkMaxGroup {
      */
     public final File mapFile;
 
+    /**
+     * The file used instead of mapFile when the macro is
+     * recorded and read in the {@link MacroFormat#BINARY} format.
+     */
+    public final File binaryFile;
+
+    /**
+     * The file used instead of mapFile when the macro is
+     * recorded and read in the {@link MacroFormat#COMPRESSED} format.
+     */
+    public final File compressedFile;
+
     // Not final to allow reinstancing.
-    FileWriter writer;
-    Scanner scanner;
+    MacroFrameWriter writer;
+    AsyncMacroRecorder asyncRecorder;
+
+    // Null until the macro has been loaded
+    MacroPlayback playback;
+    InterpolationMode interpolation = InterpolationMode.LINEAR;
+
+    boolean memoryMapped = false;
+    // Held while playing back a memory mapped macro
+    MappedMacroFile mappedFile;
+
+    MacroFormat format = MacroFormat.TEXT;
+    double sampleRateHint = 50;
+    double positionQuantum = MacroCompressedCodec.kDefaultPositionQuantum;
+
+    boolean asyncRecord = false;
+    int asyncCapacity = defaultAsyncCapacity;
+
+    int recordChannels = MacroFileFormat.CHANNEL_POSITION;
+    // 0 to record whenever recordFrame is called
+    double recordRate = 0;
+    // Only while recording at recordRate
+    Notifier recordNotifier;
+
+    Clock clock = Clock.kFPGA;
+
+    // Every motor read at once, reused for every frame so record/read don't allocate.
+    // The record one is remade when the recorded channels change
+    final MacroMotorSnapshot readSnapshot;
+    MacroMotorSnapshot recordSnapshot;
+
+    PlaybackMode playbackMode = PlaybackMode.ROBORIO_PID;
+    double onboardKP = defaultOnboardKP, onboardKI = defaultOnboardKI, onboardKD = defaultOnboardKD;
+    // Null for no feedforward
+    SimpleMotorFeedforward feedforward;
+    // Share of the recorded applied output replayed, 0 for none
+    double recordedOutputGain = 0;
+
+    // Loops of the motors that run their own this read, null for the
+    // rest, decided by beginRead
+    final OnboardPositionLoop[] onboard;
+    int onboardCount = 0;
+    final double[] velocityBuffer, accelerationBuffer;
+    // Volts added on top of the position loop, per motor
+    final double[] feedforwardVolts;
+    final double[] recordedOutput, recordedBusVoltage;
+
+    // Position error of the current or last read
+    double trackingSquares = 0, trackingMax = 0;
+    int trackingSamples = 0;
 
     /**
-     * CANSparkMax defined by constructor. This is final.
+     * CANSparkMax defined by constructor. This is final. Empty if the
+     * group was made from {@link MacroMotor}s that aren't all SparkMaxes.
      */
     public final CANSparkMax[] canSparkMaxArr;
 
-    final Timer RecordTimer = new Timer(), ReadTimer = new Timer();
+    /**
+     * Motors the macro records and drives, one per channel
+     */
+    public final MacroMotor[] motorArr;
 
-    // To allow timer to wait until it has passed this value before
-    // reading next macro line.
-    double lastReadTimer = 0;
+    final ClockTimer RecordTimer = new ClockTimer(), ReadTimer = new ClockTimer();
 
     /**
-     * Embedded PID controller for driving the motor to the 
-     * position stated by the macro at each frame. The faster the PID
-     * loop drives the motor to its goal position, the higher the
-     * accuracy.
+     * Embedded PID controllers for driving the motors to the 
+     * positions stated by the macro at each frame, one per
+     * motor. The faster the PID loop drives the motor to its goal
+     * position, the higher the accuracy.
      * 
-     * @see {@link frc.robot.libraries.PIDController}
+     * @see {@link frc.robot.libraries.TimedPIDController}
      */
-    final PIDController[] driveControllerArr;
+    final TimedPIDController[] driveControllerArr;
+
+    // Macro positions and PID outputs of the last readFrame, one per motor
+    final double[] driveTarget, driveOutput;
 
     /**
      * Creates an instance of a class extending the function of any number of
@@ -80,18 +169,67 @@ public class MacroCANSparkMaxGroup {
      * TODO * drive accuracy for tank and swerve.
      */
     public MacroCANSparkMaxGroup(String Name, CANSparkMax... MotorArr) throws IOException {
-        canSparkMaxArr = MotorArr;
+        this(Name, Filesystem.getDeployDirectory(), SparkMaxMacroMotor.wrap(MotorArr), MotorArr);
+    }
 
-        name = Name;
+    /**
+     * Creates a group from any motors, for example
+     * {@link frc.robot.libraries.MacroFramework.SimulatedMacroMotor}s to
+     * record and play back macros off the robot.
+     * 
+     * @param MotorArr Motors to add to macro group
+     * @param Name for the written/read file
+     * 
+     * @throws IOException when file location is innaccessable.
+     * 
+     * @see #MacroCANSparkMaxGroup(String, CANSparkMax...)
+     */
+    public MacroCANSparkMaxGroup(String Name, MacroMotor... MotorArr) throws IOException {
+        this(Name, Filesystem.getDeployDirectory(), MotorArr);
+    }
 
-        mapFile = new File( dataPath + "\\" + name + ".txt");
+    /**
+     * Creates a group that stores its macro files somewhere other than
+     * the deploy directory, for example a temporary directory in tests
+     * and benchmarks, so nothing is left in the deploy tree.
+     * 
+     * @param Name for the written/read file
+     * @param DataDirectory Directory to record to and read from
+     * @param MotorArr Motors to add to macro group
+     * 
+     * @throws IOException when file location is innaccessable.
+     */
+    public MacroCANSparkMaxGroup(String Name, File DataDirectory, MacroMotor... MotorArr) throws IOException {
+        this(Name, DataDirectory, MotorArr, sparkMaxesOf(MotorArr));
+    }
 
-        // Initalize PIDController for each motor
-        driveControllerArr = new PIDController[MotorArr.length];
+    private MacroCANSparkMaxGroup(String Name, File DataDirectory, MacroMotor[] MotorArr, CANSparkMax[] CanSparkMaxArr) throws IOException {
+        motorArr = MotorArr;
+        canSparkMaxArr = CanSparkMaxArr;
 
+        name = Name;
+        dataPath = DataDirectory.getPath();
+
+        mapFile = new File(dataPath, name + ".txt");
+        binaryFile = new File(dataPath, name + MacroFormat.BINARY.extension);
+        compressedFile = new File(dataPath, name + MacroFormat.COMPRESSED.extension);
+
+        readSnapshot = new MacroMotorSnapshot(MotorArr);
+        recordSnapshot = readSnapshot;
+        onboard = new OnboardPositionLoop[MotorArr.length];
+        velocityBuffer = new double[MotorArr.length];
+        accelerationBuffer = new double[MotorArr.length];
+        feedforwardVolts = new double[MotorArr.length];
+        recordedOutput = new double[MotorArr.length];
+        recordedBusVoltage = new double[MotorArr.length];
+
+        // Initalize a PID controller for each motor
+        driveControllerArr = new TimedPIDController[MotorArr.length];
         for (int i = 0; i < MotorArr.length; i++) {
-            driveControllerArr[i] = new PIDController(defaultKP, defaultKI, defaultKD, 0);
+            driveControllerArr[i] = new TimedPIDController(defaultKP, defaultKI, defaultKD, 0);
         }
+        driveTarget = new double[MotorArr.length];
+        driveOutput = new double[MotorArr.length];
 
         // Setup shuffleboard catagories
         kShuffleboardTab = Shuffleboard.getTab("MacroGroup" + name);
@@ -101,19 +239,48 @@ public class MacroCANSparkMaxGroup {
         for (int i = 0; i < MotorArr.length; i++) {
             kPositionArr[i] = kShuffleboardTab.addPersistent("Position " + i, 0).getEntry();  
         }
+
+        kDroppedFrames = kShuffleboardTab.add("Dropped Frames", 0).getEntry();
+        kMaxQueueDepth = kShuffleboardTab.add("Max Queue Depth", 0).getEntry();
+        kTrackingRMS = kShuffleboardTab.add("Tracking RMS", 0).getEntry();
+        kTrackingMax = kShuffleboardTab.add("Tracking Max Error", 0).getEntry();
+    }
+
+    // The SparkMaxes behind the motors, or none if any aren't SparkMaxes
+    private static CANSparkMax[] sparkMaxesOf(MacroMotor[] MotorArr) {
+        CANSparkMax[] sparkMaxes = new CANSparkMax[MotorArr.length];
+
+        for (int i = 0; i < MotorArr.length; i++) {
+            if (!(MotorArr[i] instanceof SparkMaxMacroMotor)) {
+                return new CANSparkMax[0];
+            }
+            sparkMaxes[i] = ((SparkMaxMacroMotor) MotorArr[i]).canSparkMax;
+        }
+
+        return sparkMaxes;
     }
 
     /**
-     * Sets the P, I, and D values of the embedded {@link PIDController}
+     * Sets the P, I, and D values of every embedded PID controller
+     * 
+     * <p>kI and kD are per second, using the real time between
+     * {@link #readFrame()} calls. Before {@link TimedPIDController} the
+     * group assumed every call was 0.05 seconds apart, so gains tuned
+     * back then act differently now. To get about the same response at
+     * the 20ms robot loop, multiply an old kI by 2.5 and an old kD by
+     * 0.4; kP is unchanged. It won't match exactly, as the timestep is
+     * measured rather than fixed, and the first update after
+     * {@link #beginRead()} has no derivative kick.
+     * 
      * @param kP Proportion of the error
-     * @param kI Proportion of the integral of the error
-     * @param kD Proportion of the derivative of the error
+     * @param kI Proportion of the integral of the error, per second
+     * @param kD Proportion of the derivative of the error, per second
      * 
      * @return this for chaining
      */
     public MacroCANSparkMaxGroup setPID(double kP, double kI, double kD) {
 
-        for (PIDController driveController : driveControllerArr) {
+        for (TimedPIDController driveController : driveControllerArr) {
             driveController.kP = kP;
             driveController.kI = kI;
             driveController.kD = kD;
@@ -122,6 +289,268 @@ public class MacroCANSparkMaxGroup {
         return this;
     }
 
+    /**
+     * Sets where the position loop is closed during playback. Takes
+     * effect on the next {@link #beginRead()}.
+     * 
+     * @param Mode {@link PlaybackMode}, ROBORIO_PID by default
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setPlaybackMode(PlaybackMode Mode) {
+        playbackMode = Mode;
+
+        return this;
+    }
+
+    /**
+     * Sets the gains sent to the motor controllers for
+     * {@link PlaybackMode#ONBOARD_PID}. These are in the controller's own
+     * units, for a SparkMax duty cycle per rotation of error, with I and D
+     * per 1ms loop, so they aren't the same numbers as {@link #setPID}.
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setOnboardPID(double kP, double kI, double kD) {
+        onboardKP = kP;
+        onboardKI = kI;
+        onboardKD = kD;
+
+        return this;
+    }
+
+    /**
+     * Sets the feedforward added to the position loop during playback,
+     * calculated from the macro's velocity in rotations per second and
+     * acceleration in rotations per second squared at each frame. With
+     * kS, kV and kA from characterization the PID only has to correct
+     * what the feedforward misses, instead of chasing the macro.
+     * 
+     * <p>In {@link PlaybackMode#ONBOARD_PID} the volts go to the motor
+     * controller as arbitrary feedforward, in ROBORIO_PID they are added
+     * to the PID output as a share of the motor's bus voltage.
+     * 
+     * @param Feedforward Feedforward in volts, or null for none
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setFeedforward(SimpleMotorFeedforward Feedforward) {
+        feedforward = Feedforward;
+
+        return this;
+    }
+
+    /**
+     * Replays the applied output recorded with the macro on top of the
+     * feedforward and PID, so playback starts from what the motors were
+     * actually given. Recorded bus voltage, if there is any, is used to
+     * replay the same volts on a different battery. Does nothing for
+     * macros recorded without
+     * {@link MacroFileFormat#CHANNEL_APPLIED_OUTPUT}.
+     * 
+     * @param Gain Share of the recorded output to replay, 1 for all of it
+     * or 0 to not replay it (the default). Lower it when a feedforward is
+     * also set, as they both cover the same output
+     * 
+     * @return this for chaining
+     * 
+     * @see #setRecordChannels(int)
+     */
+    public MacroCANSparkMaxGroup setRecordedOutputGain(double Gain) {
+        recordedOutputGain = Gain;
+
+        return this;
+    }
+
+    /**
+     * Sets the format new recordings are written in, and
+     * that {@link #beginRead()} reads from.
+     * 
+     * @param Format {@link MacroFormat#TEXT} for the legacy text file at
+     * mapFile, {@link MacroFormat#BINARY} for the binary file at binaryFile,
+     * or {@link MacroFormat#COMPRESSED} for the compressed file at compressedFile
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setFormat(MacroFormat Format) {
+        format = Format;
+
+        return this;
+    }
+
+    /**
+     * Sets the sample rate stored in the header of binary recordings.
+     * This is only a hint for tools reading the file, frames are still
+     * recorded whenever {@link #recordFrame()} is called. SparkMaxes are
+     * also set to send their position at this rate when recording or
+     * reading begins.
+     * 
+     * @param FramesPerSecond Rate recordFrame is expected to be called at
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setSampleRateHint(double FramesPerSecond) {
+        sampleRateHint = FramesPerSecond;
+
+        return this;
+    }
+
+    /**
+     * Sets what is recorded for each motor. Velocities let playback
+     * feedforward use the real recorded speed instead of one worked out
+     * from positions. Only the {@link MacroFormat#BINARY} and
+     * {@link MacroFormat#COMPRESSED} formats can hold more than positions.
+     * 
+     * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits, must
+     * include CHANNEL_POSITION
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setRecordChannels(int ChannelMask) {
+        MacroFileFormat.checkChannels(ChannelMask);
+        recordChannels = ChannelMask;
+
+        return this;
+    }
+
+    /**
+     * Records on a {@link Notifier} at a fixed rate instead of whenever
+     * {@link #recordFrame()} is called, so the macro can be sampled much
+     * faster than the robot loop without adding to it. Frames are stamped
+     * from the record timer on the FPGA clock as they are read, and always
+     * go through the asynchronous queue; recordFrame does nothing while
+     * the notifier is recording.
+     * 
+     * <p>On a simulated {@link Clock} there is no notifier, and frames are
+     * still taken by recordFrame.
+     * 
+     * @param FramesPerSecond Rate to record at, for example 200, or 0 to
+     * record when recordFrame is called
+     * 
+     * @return this for chaining
+     * 
+     * @see #setRecordChannels(int)
+     */
+    public MacroCANSparkMaxGroup setRecordRate(double FramesPerSecond) {
+        recordRate = FramesPerSecond;
+
+        return this;
+    }
+
+    /**
+     * Sets the position resolution of {@link MacroFormat#COMPRESSED}
+     * recordings. Recorded positions are rounded to a multiple of this,
+     * so smaller values are more accurate but compress less.
+     * 
+     * @param Quantum Position units per stored step
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setPositionQuantum(double Quantum) {
+        positionQuantum = Quantum;
+
+        return this;
+    }
+
+    /**
+     * Enables or disables asynchronous recording. When enabled,
+     * {@link #recordFrame()} only copies the frame into a preallocated
+     * queue and a background thread writes it to the file, so a slow
+     * write can never overrun the robot loop. Frames are dropped (and
+     * counted) if the queue fills faster than the file can be written.
+     * 
+     * @param Async true to record asynchronously
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setAsyncRecord(boolean Async) {
+        return setAsyncRecord(Async, defaultAsyncCapacity);
+    }
+
+    /**
+     * @see #setAsyncRecord(boolean)
+     * 
+     * @param Async true to record asynchronously
+     * @param CapacityFrames Number of frames that can be waiting to be written
+     * before new frames are dropped
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setAsyncRecord(boolean Async, int CapacityFrames) {
+        asyncRecord = Async;
+        asyncCapacity = CapacityFrames;
+
+        return this;
+    }
+
+    /**
+     * @return number of frames dropped by the last asynchronous recording
+     */
+    public long getDroppedFrames() {
+        return asyncRecorder == null ? 0 : asyncRecorder.getDroppedFrames();
+    }
+
+    /**
+     * @return the most frames that were waiting to be written at once
+     * during the last asynchronous recording
+     */
+    public int getMaxQueueDepth() {
+        return asyncRecorder == null ? 0 : asyncRecorder.getMaxQueueDepth();
+    }
+
+    /**
+     * Sets the clock recording and playback are timed on, and the PID
+     * timestep is measured on. Use the same {@link SimulatedClock} as the
+     * auto scheduler to run macros off the robot.
+     * 
+     * @param Source Clock to time frames on
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setClock(Clock Source) {
+        clock = Source;
+        RecordTimer.setClock(Source);
+        ReadTimer.setClock(Source);
+
+        for (TimedPIDController driveController : driveControllerArr) {
+            driveController.setClock(Source);
+        }
+
+        return this;
+    }
+
+    /**
+     * Enables or disables memory mapped playback of binary macros. When
+     * enabled, {@link #preload()} maps the binary file instead of loading
+     * it into the heap, and frames are read straight out of the mapping.
+     * Groups playing back the same file share one mapping. Suited to long
+     * recordings; has no effect on the {@link MacroFormat#TEXT} format.
+     * 
+     * @param MemoryMapped true to memory map binary macros
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setMemoryMapped(boolean MemoryMapped) {
+        memoryMapped = MemoryMapped;
+
+        return this;
+    }
+
+    /**
+     * @return the file the current format records to and reads from
+     */
+    public File getMacroFile() {
+        switch (format) {
+            case COMPRESSED:
+                return compressedFile;
+            case BINARY:
+                return binaryFile;
+            case TEXT:
+            default:
+                return mapFile;
+        }
+    }
+
     /**
      * Starts the record timer and institates the 
      * writer, and clears the file at the defined path. Note 
@@ -145,15 +574,47 @@ public class MacroCANSparkMaxGroup {
         //     canSparkMax.getEncoder().setPosition(0); // Let the user do this at the right time   
         // }
 
+        boolean sampled = recordRate > 0 && !clock.isSimulated();
+        double frameRate = recordRate > 0 ? recordRate : sampleRateHint;
+
+        configureFeedback(frameRate, recordChannels);
+
+        if (recordSnapshot.channelMask != recordChannels) {
+            recordSnapshot = new MacroMotorSnapshot(motorArr, recordChannels);
+        }
+
         RecordTimer.restart();
         RecordTimer.start();
 
-        writer = new FileWriter(mapFile, true);
+        // Clears the file
+        writer = MacroFrameWriter.create(format, getMacroFile(), motorArr.length, recordChannels, frameRate, positionQuantum);
+
+        // The notifier can't wait on the disk either
+        asyncRecorder = asyncRecord || sampled
+            ? new AsyncMacroRecorder(writer, recordSnapshot.values.length, asyncCapacity)
+            : null;
+
+        if (sampled) {
+            recordNotifier = new Notifier(this::sampleFrame);
+            recordNotifier.setName("MacroRecord" + name);
+            recordNotifier.startPeriodic(1 / recordRate);
+        }
+    }
+
+    // Values as often as frames are taken, slower would record stale
+    // values and faster is wasted CAN traffic
+    private void configureFeedback(double FramesPerSecond, int ChannelMask) {
+        if (FramesPerSecond > 0) {
+            for (MacroMotor motor : motorArr) {
+                motor.setFeedbackPeriod(1 / FramesPerSecond, ChannelMask);
+            }
+        }
+    }
 
-        // Clear the file
-        PrintWriter writer = new PrintWriter(mapFile);
-        writer.print(""); // Write empty
-        writer.close();
+    // Notifier thread, the only producer for the async queue while it runs
+    private void sampleFrame() {
+        double time = recordSnapshot.capture(RecordTimer);
+        asyncRecorder.record(time, recordSnapshot.values);
     }
 
     /**
@@ -163,24 +624,29 @@ public class MacroCANSparkMaxGroup {
      * 
      * @apiNote Lines are written in the format;
      * {@code String toWrite = RecordTimer.get() + "," + encoder.getPosition() + "\n";}
+     * unless the {@link MacroFormat#BINARY} format is used, which writes
+     * fixed-width frames without allocating. When recording asynchronously
+     * the frame is only queued, and is written by a background thread.
+     * Does nothing while recording on a notifier.
      * 
-     * @param TimeSeconds Current macro time
+     * @see #setRecordRate(double)
      * 
      * @throws IOException to allow user to handle how the macro
      * process should be handled if this error occurs
      */
     public void recordFrame() throws IOException {
 
-        // Note this method to write the macros, this same format will be read.
-        String toWrite = "" + RecordTimer.get();
-
-        for (CANSparkMax canSparkMax : canSparkMaxArr) {
-            toWrite += ("," + canSparkMax.getEncoder().getPosition());
+        if (recordNotifier != null) {
+            return;
         }
 
-        toWrite += "\n";
+        double time = recordSnapshot.capture(RecordTimer);
 
-        writer.append(toWrite);
+        if (asyncRecorder != null) {
+            asyncRecorder.record(time, recordSnapshot.values);
+        } else {
+            writer.writeFrame(time, recordSnapshot.values);
+        }
     }
 
     /**
@@ -188,22 +654,120 @@ public class MacroCANSparkMaxGroup {
      * that this function can be ran in a seperate section of 
      * code than what is driving the motor.
      * 
+     * <p>When recording asynchronously, this waits at most
+     * {@value #endRecordTimeout} seconds for queued frames to be
+     * written and synced to the disk.
+     * 
      * @throws IOException to allow user to handle how the macro
      * process should be handled if this error occurs
      */
     public void endRecord() throws IOException {
 
-        writer.close();
+        // Stop sampling before the queue is closed, close waits out a running sample
+        if (recordNotifier != null) {
+            recordNotifier.stop();
+            recordNotifier.close();
+            recordNotifier = null;
+        }
 
-        // Reset the timer
-        RecordTimer.stop();
-        RecordTimer.reset();
+        try {
+            if (asyncRecorder != null) {
+                try {
+                    asyncRecorder.close(endRecordTimeout);
+                } finally {
+                    // Most useful exactly when closing went wrong
+                    kDroppedFrames.setDouble(asyncRecorder.getDroppedFrames());
+                    kMaxQueueDepth.setDouble(asyncRecorder.getMaxQueueDepth());
+
+                    if (asyncRecorder.getDroppedFrames() > 0) {
+                        DriverStation.reportWarning("Macro " + name + " dropped "
+                            + asyncRecorder.getDroppedFrames() + " frames while recording", false);
+                    }
+                }
+            } else {
+                writer.close();
+            }
+        } finally {
+            // Reset the timer
+            RecordTimer.stop();
+            RecordTimer.reset();
+
+            // The loaded macro may be stale now, reload it on the next read
+            releaseMacro();
+            MacroCache.getInstance().invalidate(getMacroFile());
+        }
 
         // encoder.setPosition(0); // fuck you batman
     }
 
     /**
-     * Starts the macro read timer and initializes the scanner.
+     * Loads the whole macro for the current format into memory, so that
+     * reading it never touches the file system or parses anything. Call
+     * this when the robot starts or the auto is selected; if it has not
+     * been called, {@link #beginRead()} calls it.
+     * 
+     * <p>Macros are shared through the {@link MacroCache}, so a macro
+     * already warmed by the cache is not read again. Memory mapped
+     * macros are shared through {@link MappedMacroFile} instead.
+     * 
+     * @see #setMemoryMapped(boolean)
+     * 
+     * @throws IOException if the macro file cannot be read
+     */
+    public void preload() throws IOException {
+        releaseMacro();
+
+        MacroFrameSource loaded;
+
+        if (memoryMapped && format == MacroFormat.BINARY) {
+            mappedFile = MappedMacroFile.open(binaryFile);
+            loaded = mappedFile;
+        } else {
+            loaded = MacroCache.getInstance().getOrLoad(getMacroFile());
+        }
+
+        if (loaded.getFrameCount() > 0 && loaded.getMotorCount() != motorArr.length) {
+            releaseMacro();
+            throw new IOException("Macro " + getMacroFile() + " holds " + loaded.getMotorCount()
+                + " motors, but the group has " + motorArr.length);
+        }
+
+        playback = new MacroPlayback(loaded, interpolation);
+    }
+
+    /**
+     * Drops the loaded macro, releasing its mapping if it was memory mapped
+     */
+    private void releaseMacro() {
+        playback = null;
+
+        if (mappedFile != null) {
+            mappedFile.close();
+            mappedFile = null;
+        }
+    }
+
+    /**
+     * Sets how positions between recorded frames are produced
+     * during playback.
+     * 
+     * @param Mode {@link InterpolationMode}, LINEAR by default
+     * 
+     * @return this for chaining
+     */
+    public MacroCANSparkMaxGroup setInterpolation(InterpolationMode Mode) {
+        interpolation = Mode;
+
+        if (playback != null) {
+            playback.setInterpolation(Mode);
+        }
+
+        return this;
+    }
+
+    /**
+     * Starts the macro read timer, loading the macro first
+     * if it has not been preloaded.
      * 
      * @apiNote {@link CANSparkMax} {@link RelativeEncoder} position
      * is not reset when reading begins, to allow the user to do this
@@ -212,65 +776,201 @@ public class MacroCANSparkMaxGroup {
      * may attempt to drive the motor to the starting macro value for the
      * first few frames.
      * 
-     * @throws FileNotFoundException if the path attempted to be
+     * @see #preload()
+     * 
+     * @throws IOException if the path attempted to be
      * read is inaccessable by the code.
      */
-    public void beginRead() throws FileNotFoundException {
-        ReadTimer.restart();
-        ReadTimer.start();
+    public void beginRead() throws IOException {
+        if (playback == null) {
+            preload();
+        }
+
+        playback.reset();
+
+        // Don't count the time since the last read as one timestep
+        for (TimedPIDController driveController : driveControllerArr) {
+            driveController.reset();
+        }
+
+        trackingSquares = 0;
+        trackingMax = 0;
+        trackingSamples = 0;
 
-        // Create a new scanner instance to override the last
-        scanner = new Scanner(mapFile);
+        configureFeedback(sampleRateHint, MacroFileFormat.CHANNEL_POSITION);
 
-        scanner.useDelimiter(",|\\n");
+        // Motors without a loop of their own stay on the roboRIO's
+        onboardCount = 0;
+        for (int i = 0; i < motorArr.length; i++) {
+            onboard[i] = null;
 
-        // Grab the start time of the macro
-        if (scanner.hasNext()) {
-            lastReadTimer = scanner.nextDouble();
+            if (playbackMode == PlaybackMode.ONBOARD_PID && motorArr[i] instanceof OnboardPositionLoop) {
+                OnboardPositionLoop loop = (OnboardPositionLoop) motorArr[i];
+
+                if (loop.configurePositionPID(onboardKP, onboardKI, onboardKD)) {
+                    onboard[i] = loop;
+                    onboardCount++;
+                }
+            }
         }
+
+        ReadTimer.restart();
+        ReadTimer.start();
     }
     
     /**
-     * Reads a single frame from the macro if current time has passed 
-     * the LastReadTimer value. The canSparkMax will be set to
-     * the output of the driveController.
+     * Drives each motor towards the macro position at the current
+     * read time. The canSparkMax will be set to the output of its
+     * PID controller, or in {@link PlaybackMode#ONBOARD_PID} sent
+     * the position to hold itself, plus any feedforward and replayed
+     * output.
+     * 
+     * @apiNote In ONBOARD_PID the SparkMax keeps holding the last
+     * position after the read ends, until something else sets the motor.
+     * 
+     * @see #setFeedforward(SimpleMotorFeedforward)
+     * @see #setRecordedOutputGain(double)
      */
     public void readFrame() {
 
-        for (int i = 0; i < canSparkMaxArr.length; i++) {
-            driveControllerArr[i].setInput(canSparkMaxArr[i].getEncoder().getPosition());   
+        double time = readSnapshot.capture(ReadTimer);
+        double[] positions = readSnapshot.values;
+
+        boolean hasFeedforward = false;
+
+        // Interpolate between the recorded frames around the snapshot time,
+        // straight into the targets. Velocity only matters for feedforward
+        if (playback != null) {
+            boolean needsVelocity = feedforward != null;
+            playback.sample(time, driveTarget,
+                needsVelocity ? velocityBuffer : null, needsVelocity ? accelerationBuffer : null);
+
+            hasFeedforward = calculateFeedforward(time);
+            trackError(positions);
         }
 
-        // Only progress to read the position if the time has passed the
-        // time defined within the macro.
-        if (ReadTimer.get() > lastReadTimer) {
+        // Unless every motor runs its own loop
+        if (onboardCount < motorArr.length) {
+            calculateDrive(positions);
+        }
 
-            for (PIDController driveController : driveControllerArr) {
-                if (scanner.hasNext()) {
-                    // Read the macro value
-                    driveController.setTarget(scanner.nextDouble());
-                }   
+        // set the motor
+        for (int i = 0; i < motorArr.length; i++) {
+            double volts = hasFeedforward ? feedforwardVolts[i] : 0;
+
+            if (onboard[i] != null) {
+                onboard[i].setPositionReference(driveTarget[i], volts);
+            } else if (volts != 0) {
+                double output = driveOutput[i] + volts / busVoltage(motorArr[i].getBusVoltage());
+                motorArr[i].set(Math.max(-1, Math.min(1, output)));
+            } else {
+                motorArr[i].set(driveOutput[i]);
             }
+        }
+    }
 
-            if (scanner.hasNext()) {
-                //Read the next timer value
-                lastReadTimer = scanner.nextDouble();
+    /**
+     * Fills feedforwardVolts from the feedforward and the recorded output
+     * at the sampled time
+     * 
+     * @return false if there is neither, and feedforwardVolts wasn't touched
+     */
+    private boolean calculateFeedforward(double TimeSeconds) {
+        boolean replayOutput = recordedOutputGain != 0
+            && playback.sampleChannel(TimeSeconds, MacroFileFormat.CHANNEL_APPLIED_OUTPUT, recordedOutput);
+
+        if (feedforward == null && !replayOutput) {
+            return false;
+        }
+
+        // Without it the output was given at whatever the battery had, guess nominal
+        boolean recordedBus = replayOutput
+            && playback.sampleChannel(TimeSeconds, MacroFileFormat.CHANNEL_BUS_VOLTAGE, recordedBusVoltage);
+
+        for (int i = 0; i < motorArr.length; i++) {
+            double volts = feedforward != null ? feedforward.calculate(velocityBuffer[i], accelerationBuffer[i]) : 0;
+
+            if (replayOutput) {
+                volts += recordedOutputGain * recordedOutput[i]
+                    * (recordedBus ? busVoltage(recordedBusVoltage[i]) : kNominalVoltage);
             }
+
+            feedforwardVolts[i] = volts;
         }
 
-        // set the motor
-        for (int i = 0; i < canSparkMaxArr.length; i++) {
-            canSparkMaxArr[i].set(driveControllerArr[i].calculate(1, -1));   
+        return true;
+    }
+
+    // Motors that can't read their bus voltage are assumed to be at nominal
+    private static double busVoltage(double Volts) {
+        return Volts > 0 ? Volts : kNominalVoltage;
+    }
+
+    // Fills driveOutput for every motor the roboRIO drives
+    private void calculateDrive(double[] Positions) {
+        for (int i = 0; i < motorArr.length; i++) {
+            if (onboard[i] == null) {
+                TimedPIDController driveController = driveControllerArr[i];
+                driveController.setInput(Positions[i]);
+                driveController.setTarget(driveTarget[i]);
+                driveOutput[i] = driveController.calculate(1, -1);
+            }
+        }
+    }
+
+    // Error between where each motor is and where the macro has it right now
+    private void trackError(double[] Positions) {
+        for (int i = 0; i < motorArr.length; i++) {
+            double error = Math.abs(driveTarget[i] - Positions[i]);
+
+            trackingSquares += error * error;
+            if (error > trackingMax) {
+                trackingMax = error;
+            }
         }
+        trackingSamples += motorArr.length;
     }
 
     /**
-     * Closes the scanner, and resets the timer.
+     * Root mean square of the position error over every motor and
+     * frame of the current read, or the last one once it has ended.
+     * Compare runs with different gains, feedforward and playback modes
+     * to see which follows the macro closest.
+     * 
+     * @return RMS tracking error in rotations, 0 before any frame is read
+     * 
+     * @see #getTrackingMaxError()
      */
-    public void endRead() {
-        scanner.close();
+    public double getTrackingRMS() {
+        return trackingSamples > 0 ? Math.sqrt(trackingSquares / trackingSamples) : 0;
+    }
+
+    /**
+     * @return largest position error of any motor in the current or last
+     * read, in rotations
+     * 
+     * @see #getTrackingRMS()
+     */
+    public double getTrackingMaxError() {
+        return trackingMax;
+    }
 
+    /**
+     * @return true once the read time has passed the end of the macro
+     */
+    public boolean isReadFinished() {
+        return playback != null && playback.isFinished(ReadTimer.get());
+    }
+
+    /**
+     * Resets the read timer and puts the tracking error on the dashboard.
+     * The macro stays loaded for the next read.
+     */
+    public void endRead() {
         ReadTimer.stop();
         ReadTimer.reset();
+
+        kTrackingRMS.setDouble(getTrackingRMS());
+        kTrackingMax.setDouble(getTrackingMaxError());
     }
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records macro frames without doing any file I/O on the calling thread.
+ * 
+ * <p>{@link #record(double, double[])} only copies the frame into a
+ * preallocated {@link MacroRingBuffer}. A background thread drains the
+ * buffer into a {@link MacroFrameWriter}. If the writer falls behind and
+ * the buffer fills, frames are dropped and counted rather than blocking
+ * the robot loop.
+ */
+public class AsyncMacroRecorder {
+
+    /**
+     * How long the writer thread sleeps when there is nothing to write
+     */
+    static final long kIdleNanos = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final MacroFrameWriter writer;
+    private final MacroRingBuffer ringBuffer;
+    private final Thread writerThread;
+
+    // Only touched by the writer thread
+    private final double[] drainBuffer;
+
+    private volatile boolean running = true;
+    // Set when close runs out of time, the writer stops taking frames and
+    // commits what it already has
+    private volatile boolean abandoned = false;
+    private volatile IOException writeException;
+
+    // Written by the recording thread only
+    private volatile long droppedFrames = 0;
+    private volatile int maxQueueDepth = 0;
+
+    /**
+     * Creates the recorder and starts its writer thread
+     * 
+     * @param Writer Destination for frames. The recorder takes ownership of
+     * the writer and closes it in {@link #close(double)}
+     * @param ValueCount Number of values recorded per frame
+     * @param CapacityFrames Number of frames that can be waiting to be written
+     * before new frames are dropped
+     */
+    public AsyncMacroRecorder(MacroFrameWriter Writer, int ValueCount, int CapacityFrames) {
+        writer = Writer;
+        ringBuffer = new MacroRingBuffer(CapacityFrames, ValueCount);
+        drainBuffer = new double[ValueCount];
+
+        writerThread = new Thread(this::writeLoop, "MacroRecorder");
+        writerThread.setDaemon(true);
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.start();
+    }
+
+    /**
+     * Queues a frame to be written. Never blocks, and does not allocate.
+     * Must always be called from the same thread.
+     * 
+     * @param timeSeconds Macro time of the frame
+     * @param values Frame values
+     * 
+     * @return false if the queue was full and the frame was dropped
+     */
+    public boolean record(double timeSeconds, double[] values) {
+        if (!ringBuffer.offer(timeSeconds, values)) {
+            droppedFrames++;
+            return false;
+        }
+
+        int depth = ringBuffer.size();
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+
+        return true;
+    }
+
+    /**
+     * Stops accepting frames, waits for the writer thread to write and
+     * fsync every queued frame, and closes the writer.
+     * 
+     * @param timeoutSeconds Maximum time to wait for the writer thread.
+     * Frames still queued when the time runs out are counted as dropped,
+     * and the frames already written are still saved to the macro. After
+     * that close waits up to the same time again for the writer to commit
+     * the file, so it can return in up to twice the timeout.
+     * 
+     * @return true if every queued frame was written within the timeout
+     * 
+     * @throws IOException if the writer thread failed to write a frame or
+     * commit the file, or was still busy after both waits. In either case
+     * the macro may not have been replaced
+     */
+    public boolean close(double timeoutSeconds) throws IOException {
+        long timeoutMillis = Math.max(1, (long) (timeoutSeconds * 1000));
+
+        running = false;
+        LockSupport.unpark(writerThread);
+        join(timeoutMillis);
+
+        boolean finished = !writerThread.isAlive();
+
+        if (!finished) {
+            // Give up on the remaining frames rather than hold up the robot.
+            // Interrupting would close the file channel under the writer and
+            // lose the whole recording
+            abandoned = true;
+            LockSupport.unpark(writerThread);
+
+            // Only the frame being written and the commit are left
+            join(timeoutMillis);
+
+            // The writer has stopped taking frames, so this is exact
+            droppedFrames += ringBuffer.size();
+        }
+
+        if (writeException != null) {
+            throw writeException;
+        }
+
+        if (writerThread.isAlive()) {
+            throw new IOException("Macro writer thread is still closing the file after "
+                + 2 * timeoutMillis + "ms");
+        }
+
+        return finished;
+    }
+
+    private void join(long timeoutMillis) {
+        try {
+            writerThread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of frames dropped because the queue was full or the
+     * writer did not finish in time
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return the most frames that were waiting to be written at once
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    private void writeLoop() {
+        try {
+            while (running) {
+                if (!drain()) {
+                    LockSupport.parkNanos(this, kIdleNanos);
+                }
+            }
+
+            // Write whatever was queued before close was called, skipping the
+            // fsync if close already gave up waiting
+            drain();
+            if (!abandoned) {
+                writer.sync();
+            }
+        } catch (IOException e) {
+            writeException = e;
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                if (writeException == null) {
+                    writeException = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if any frames were written
+     */
+    private boolean drain() throws IOException {
+        boolean wrote = false;
+
+        double timeSeconds;
+        while (!abandoned && !Double.isNaN(timeSeconds = ringBuffer.poll(drainBuffer))) {
+            writer.writeFrame(timeSeconds, drainBuffer);
+            wrote = true;
+        }
+
+        return wrote;
+    }
+}
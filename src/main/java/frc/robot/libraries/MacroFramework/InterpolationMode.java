@@ -0,0 +1,23 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * How {@link MacroPlayback} produces positions between recorded frames
+ */
+public enum InterpolationMode {
+    /**
+     * Holds the position of the last frame that has passed,
+     * matching the original frame-by-frame playback
+     */
+    STEP,
+
+    /**
+     * Straight line between the surrounding frames
+     */
+    LINEAR,
+
+    /**
+     * Cubic Hermite spline through the frames, with tangents taken from
+     * the neighbouring frames. Smooth velocity across frame boundaries.
+     */
+    CUBIC
+}
@@ -0,0 +1,180 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads frames from a binary macro file. Frames are fixed width, so
+ * the reader can seek to any frame or timestamp without reading the
+ * frames before it.
+ * 
+ * @see MacroFileFormat
+ */
+public class MacroBinaryReader implements Closeable {
+
+    private final FileChannel channel;
+    private final ByteBuffer frameBuffer;
+
+    public final MacroFileFormat.Header header;
+
+    private final int frameBytes;
+    private final int frameCount;
+
+    // Index of the next frame readFrame will return
+    private int cursor = 0;
+
+    /**
+     * Opens a binary macro file and reads its header
+     * 
+     * @param MacroFile File to read from
+     * 
+     * @throws IOException when the file cannot be read or is not a
+     * binary macro file
+     */
+    public MacroBinaryReader(File MacroFile) throws IOException {
+        channel = FileChannel.open(MacroFile.toPath(), StandardOpenOption.READ);
+
+        try {
+            ByteBuffer headerBuffer = ByteBuffer.allocate(MacroFileFormat.HEADER_BYTES);
+            headerBuffer.order(MacroFileFormat.BYTE_ORDER);
+            readFully(headerBuffer, 0);
+            headerBuffer.flip();
+
+            header = MacroFileFormat.Header.read(headerBuffer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        frameBytes = header.frameBytes();
+        frameCount = (int) ((channel.size() - MacroFileFormat.HEADER_BYTES) / frameBytes);
+
+        frameBuffer = ByteBuffer.allocateDirect(frameBytes);
+        frameBuffer.order(MacroFileFormat.BYTE_ORDER);
+    }
+
+    /**
+     * @return number of complete frames in the file
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return number of motors stored in each frame
+     */
+    public int getMotorCount() {
+        return header.motorCount;
+    }
+
+    /**
+     * @return number of values stored in each frame, not counting the time
+     */
+    public int getValueCount() {
+        return header.motorCount * header.channelCount();
+    }
+
+    /**
+     * @return true if readFrame has another frame to return
+     */
+    public boolean hasNext() {
+        return cursor < frameCount;
+    }
+
+    /**
+     * Moves the reader so the next readFrame call returns the frame at index
+     * 
+     * @param frameIndex Index of the frame, clamped to the frames in the file
+     */
+    public void seek(int frameIndex) {
+        cursor = Math.max(0, Math.min(frameIndex, frameCount));
+    }
+
+    /**
+     * Moves the reader to the last frame recorded at or before the given time.
+     * 
+     * @param timeSeconds Macro time to seek to
+     * 
+     * @throws IOException when the file cannot be read
+     */
+    public void seekTime(double timeSeconds) throws IOException {
+        int low = 0, high = frameCount - 1, found = 0;
+
+        // Binary search, timestamps are recorded in increasing order
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (readTime(mid) <= timeSeconds) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        seek(found);
+    }
+
+    /**
+     * Reads the next frame and advances the reader
+     * 
+     * @param values Array to fill with the frame values, at least
+     * {@link #getValueCount()} long. Just positions unless the macro was
+     * recorded with more channels
+     * 
+     * @return the time of the frame, or NaN if there are no frames left
+     * 
+     * @throws IOException when the file cannot be read
+     */
+    public double readFrame(double[] values) throws IOException {
+        if (!hasNext()) {
+            return Double.NaN;
+        }
+
+        frameBuffer.clear();
+        readFully(frameBuffer, framePosition(cursor));
+        frameBuffer.flip();
+
+        cursor++;
+
+        double time = frameBuffer.getDouble();
+        int valueCount = getValueCount();
+        for (int i = 0; i < valueCount; i++) {
+            values[i] = frameBuffer.getDouble();
+        }
+
+        return time;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private double readTime(int frameIndex) throws IOException {
+        frameBuffer.clear();
+        frameBuffer.limit(Double.BYTES);
+        readFully(frameBuffer, framePosition(frameIndex));
+        frameBuffer.flip();
+
+        return frameBuffer.getDouble();
+    }
+
+    private long framePosition(int frameIndex) {
+        return MacroFileFormat.HEADER_BYTES + (long) frameIndex * frameBytes;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of macro file");
+            }
+            position += read;
+        }
+    }
+}
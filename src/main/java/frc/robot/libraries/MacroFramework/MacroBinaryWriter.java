@@ -0,0 +1,164 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes frames in the binary macro format. Frames are packed into a
+ * preallocated buffer and only handed to the file once the buffer
+ * fills, so writing a frame does not allocate.
+ * 
+ * <p>Frames are written to a temporary file next to the macro, which
+ * replaces the macro when the writer is closed. Anything still reading
+ * or memory mapping the old macro keeps seeing the old contents.
+ * 
+ * @see MacroFileFormat
+ */
+public class MacroBinaryWriter implements MacroFrameWriter {
+
+    /**
+     * Number of frames held in memory before they are written out
+     */
+    static final int kBufferedFrames = 64;
+
+    private final Path target, temporary;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    public final int motorCount;
+    public final int channelMask;
+
+    // Doubles per frame, not counting the time
+    private final int valueCount;
+
+    /**
+     * Creates the temporary file and writes the header.
+     * 
+     * @param MacroFile File to write to
+     * @param MotorCount Number of positions stored in each frame
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    public MacroBinaryWriter(File MacroFile, int MotorCount, double SampleRateHint) throws IOException {
+        this(MacroFile, MotorCount, MacroFileFormat.CHANNEL_POSITION, SampleRateHint);
+    }
+
+    /**
+     * Creates the temporary file and writes the header.
+     * 
+     * @param MacroFile File to write to
+     * @param MotorCount Number of motors stored in each frame
+     * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits stored for each motor
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    public MacroBinaryWriter(File MacroFile, int MotorCount, int ChannelMask, double SampleRateHint) throws IOException {
+        MacroFileFormat.checkChannels(ChannelMask);
+
+        motorCount = MotorCount;
+        channelMask = ChannelMask;
+        valueCount = MotorCount * MacroFileFormat.channelCount(ChannelMask);
+
+        target = MacroFile.toPath();
+        temporary = target.resolveSibling(MacroFile.getName() + ".tmp");
+
+        channel = FileChannel.open(temporary,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer = ByteBuffer.allocateDirect(
+            Math.max(MacroFileFormat.HEADER_BYTES, MacroFileFormat.frameBytes(MotorCount, ChannelMask) * kBufferedFrames));
+        buffer.order(MacroFileFormat.BYTE_ORDER);
+
+        new MacroFileFormat.Header(MacroFileFormat.VERSION, MotorCount, ChannelMask, SampleRateHint).write(buffer);
+    }
+
+    /**
+     * Appends a single frame
+     * 
+     * @param timeSeconds Macro time of the frame
+     * @param values Each motor's channels in order, just positions
+     * unless the writer was made with more channels
+     * 
+     * @throws IOException when the buffered frames cannot be written
+     */
+    @Override
+    public void writeFrame(double timeSeconds, double[] values) throws IOException {
+        if (buffer.remaining() < Double.BYTES * (1 + valueCount)) {
+            flush();
+        }
+
+        buffer.putDouble(timeSeconds);
+        for (int i = 0; i < valueCount; i++) {
+            buffer.putDouble(values[i]);
+        }
+    }
+
+    /**
+     * Writes every buffered frame to the file
+     * 
+     * @throws IOException when the file cannot be written to
+     */
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void sync() throws IOException {
+        flush();
+        channel.force(true);
+    }
+
+    /**
+     * Flushes buffered frames, closes the file and moves it over the macro.
+     * If any of that fails the temporary file is deleted and the old macro
+     * is left alone.
+     * 
+     * <p>An interrupt pending on the calling thread is held off until the
+     * file is closed, since it would otherwise close the channel before
+     * the last frames are written.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean interrupted = Thread.interrupted();
+
+        try {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            deleteTemporary(temporary, e);
+            throw e;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Doesn't hide the original failure if the delete fails too
+    static void deleteTemporary(Path Temporary, Exception Cause) {
+        try {
+            Files.deleteIfExists(Temporary);
+        } catch (IOException e) {
+            Cause.addSuppressed(e);
+        }
+    }
+}
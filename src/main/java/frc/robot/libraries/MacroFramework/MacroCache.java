@@ -0,0 +1,314 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.shuffleboard.Shuffleboard;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
+
+/**
+ * Process-wide cache of loaded macros, keyed by the absolute, normalized
+ * path of the macro file, so the same file is found however its path
+ * was written, and same named files in different directories don't
+ * collide. Working out the key is pure string work and never touches
+ * the file system.
+ * 
+ * <p>Warm the cache with {@link #warm(File)} in robotInit, and call
+ * {@link #refresh()} while disabled to pick up macros that changed on
+ * disk. {@link #get(File)} never reads a file, so looking up a macro
+ * when autonomous starts is just a path lookup and a map lookup. When the
+ * loaded macros exceed the memory budget, the least recently used
+ * macros are evicted.
+ * 
+ * <p>Hit, miss and load time statistics are published to the
+ * "MacroCache" Shuffleboard tab when the cache is warmed or refreshed,
+ * and on a miss. Hits aren't published as they happen, to keep lookups
+ * cheap.
+ */
+public class MacroCache {
+
+    // 16MB, far more than a season of autos at 50hz
+    static final long defaultMemoryBudget = 16L * 1024 * 1024;
+
+    private static MacroCache instance;
+
+    /**
+     * @return the process-wide cache
+     */
+    public static synchronized MacroCache getInstance() {
+        if (instance == null) {
+            instance = new MacroCache();
+        }
+        return instance;
+    }
+
+    private static class Entry {
+        final String key;
+        final File file;
+        final long lastModified;
+        final MacroTrack track;
+
+        Entry(String Key, File File, long LastModified, MacroTrack Track) {
+            key = Key;
+            file = File;
+            lastModified = LastModified;
+            track = Track;
+        }
+    }
+
+    // Access ordered, so iteration starts at the least recently used macro
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+    private long memoryBudget = defaultMemoryBudget;
+    private long usedBytes = 0;
+
+    private long hits = 0, misses = 0, loads = 0, evictions = 0;
+    private double lastLoadMs = 0, totalLoadMs = 0;
+
+    private final ShuffleboardTab kShuffleboardTab;
+    private final GenericEntry kHits, kMisses, kLoads, kEvictions, kCachedMacros, kCachedBytes, kLastLoadMs, kTotalLoadMs;
+
+    private MacroCache() {
+        kShuffleboardTab = Shuffleboard.getTab("MacroCache");
+
+        kHits = kShuffleboardTab.add("Hits", 0).getEntry();
+        kMisses = kShuffleboardTab.add("Misses", 0).getEntry();
+        kLoads = kShuffleboardTab.add("Loads", 0).getEntry();
+        kEvictions = kShuffleboardTab.add("Evictions", 0).getEntry();
+        kCachedMacros = kShuffleboardTab.add("Cached Macros", 0).getEntry();
+        kCachedBytes = kShuffleboardTab.add("Cached Bytes", 0).getEntry();
+        kLastLoadMs = kShuffleboardTab.add("Last Load ms", 0).getEntry();
+        kTotalLoadMs = kShuffleboardTab.add("Total Load ms", 0).getEntry();
+    }
+
+    /**
+     * Sets the most memory loaded macros may hold before the least
+     * recently used ones are evicted.
+     * 
+     * @param Bytes Memory budget in bytes
+     * 
+     * @return self for chaining
+     */
+    public synchronized MacroCache setMemoryBudget(long Bytes) {
+        memoryBudget = Bytes;
+        evict(null);
+        publishStats();
+
+        return this;
+    }
+
+    /**
+     * Loads every macro file in a directory that isn't already cached.
+     * Text files are only loaded if their first line looks like a macro
+     * frame, so READMEs and other text files deployed alongside the
+     * macros are skipped quietly.
+     * 
+     * @param Directory Directory to search, typically the deploy directory
+     * 
+     * @return number of macros loaded
+     */
+    public synchronized int warm(File Directory) {
+        File[] files = Directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+
+        int loaded = 0;
+
+        for (File file : files) {
+            MacroFormat format = MacroFormat.fromFileName(file.getName());
+            if (!file.isFile() || format == null) {
+                continue;
+            }
+
+            String key = key(file);
+            if (entries.containsKey(key)) {
+                continue;
+            }
+
+            try {
+                if (format == MacroFormat.TEXT && !MacroTextReader.isMacroFile(file)) {
+                    continue;
+                }
+
+                loadEntry(key, file);
+                loaded++;
+            } catch (IOException e) {
+                reportLoadFailure(file, e);
+            }
+        }
+
+        publishStats();
+        return loaded;
+    }
+
+    /**
+     * Reloads every cached macro whose file has changed since it was
+     * loaded, and drops macros whose file has been deleted. This touches
+     * the file system, so call it while disabled.
+     * 
+     * @return number of macros reloaded
+     */
+    public synchronized int refresh() {
+        int reloaded = 0;
+
+        // Copy, as reloading reorders the access ordered map
+        Entry[] current = entries.values().toArray(new Entry[0]);
+
+        for (Entry entry : current) {
+            if (!entry.file.isFile()) {
+                remove(entry.key);
+                continue;
+            }
+
+            if (entry.file.lastModified() != entry.lastModified) {
+                try {
+                    loadEntry(entry.key, entry.file);
+                    reloaded++;
+                } catch (IOException e) {
+                    reportLoadFailure(entry.file, e);
+                }
+            }
+        }
+
+        publishStats();
+        return reloaded;
+    }
+
+    /**
+     * Looks up a cached macro without reading the file
+     * 
+     * @param MacroFile Macro file, relative paths are resolved against
+     * the working directory
+     * 
+     * @return the cached macro, or null if it has not been loaded
+     */
+    public synchronized MacroTrack get(File MacroFile) {
+        Entry entry = entries.get(key(MacroFile));
+
+        if (entry == null) {
+            misses++;
+            publishStats();
+            return null;
+        }
+
+        hits++;
+        return entry.track;
+    }
+
+    /**
+     * Returns the cached macro for a file, loading and caching it on a miss
+     * 
+     * @param MacroFile Macro file to load
+     * 
+     * @return the loaded macro
+     * 
+     * @throws IOException when the file is not cached and cannot be read
+     */
+    public synchronized MacroTrack getOrLoad(File MacroFile) throws IOException {
+        MacroTrack track = get(MacroFile);
+
+        if (track == null) {
+            track = loadEntry(key(MacroFile), MacroFile);
+            publishStats();
+        }
+
+        return track;
+    }
+
+    /**
+     * Drops a macro from the cache, for example after it is re-recorded
+     * 
+     * @param MacroFile Macro file to drop
+     */
+    public synchronized void invalidate(File MacroFile) {
+        remove(key(MacroFile));
+        publishStats();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getCachedBytes() {
+        return usedBytes;
+    }
+
+    private MacroTrack loadEntry(String key, File file) throws IOException {
+        long lastModified = file.lastModified();
+
+        long start = System.nanoTime();
+        MacroTrack track = MacroTrack.load(file);
+        lastLoadMs = (System.nanoTime() - start) / 1e6;
+
+        totalLoadMs += lastLoadMs;
+        loads++;
+
+        remove(key);
+
+        entries.put(key, new Entry(key, file, lastModified, track));
+        usedBytes += track.sizeBytes();
+
+        evict(key);
+        return track;
+    }
+
+    // A bad macro should show up on the driver station, not just the console
+    private static void reportLoadFailure(File file, IOException e) {
+        DriverStation.reportWarning("MacroCache: couldn't load " + file.getName() + ": " + e.getMessage(), false);
+    }
+
+    // String work only, a canonical path would hit the file system on every lookup
+    private static String key(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    private void remove(String fileName) {
+        Entry removed = entries.remove(fileName);
+
+        if (removed != null) {
+            usedBytes -= removed.track.sizeBytes();
+        }
+    }
+
+    /**
+     * Evicts least recently used macros until the cache fits its budget
+     * 
+     * @param keep Key of a macro that should not be evicted, or null
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+
+        while (usedBytes > memoryBudget && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+
+            usedBytes -= eldest.getValue().track.sizeBytes();
+            iterator.remove();
+            evictions++;
+        }
+    }
+
+    private void publishStats() {
+        kHits.setDouble(hits);
+        kMisses.setDouble(misses);
+        kLoads.setDouble(loads);
+        kEvictions.setDouble(evictions);
+        kCachedMacros.setDouble(entries.size());
+        kCachedBytes.setDouble(usedBytes);
+        kLastLoadMs.setDouble(lastLoadMs);
+        kTotalLoadMs.setDouble(totalLoadMs);
+    }
+}
@@ -0,0 +1,333 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact macro encoding for files deployed over a slow link.
+ * 
+ * <p>The file starts with a fixed {@value #HEADER_BYTES} byte header;
+ * <pre>
+ * int    magic           'MCRZ'
+ * int    version
+ * int    motorCount
+ * int    channelMask     as in {@link MacroFileFormat}, reserved (0) in version 1
+ * double sampleRateHint  frames per second the macro was recorded at
+ * double positionQuantum position units per stored step
+ * </pre>
+ * followed by variable width frames. Times are stored in whole
+ * microseconds as the delta of the delta from the previous frames, and
+ * each position is quantized to positionQuantum and stored as the delta
+ * from the same motor's previous position. Other channels follow each
+ * position the same way, with fixed quanta. Every value is a zig-zag
+ * varint, so the slowly changing values of a typical recording take one
+ * or two bytes each.
+ * 
+ * <p>Quantizing is lossy: decoded values are within half a quantum of
+ * the recorded ones.
+ */
+public final class MacroCompressedCodec {
+
+    public static final int MAGIC = 0x5A52434D; // "MCRZ" read as little endian
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 32;
+
+    /**
+     * Default position step. SparkMax encoders report rotations, so this
+     * is well under a degree.
+     */
+    public static final double kDefaultPositionQuantum = 1e-4;
+
+    /**
+     * Steps of the other channels; position units per second, duty cycle
+     * and volts
+     */
+    public static final double kVelocityQuantum = 1e-3, kAppliedOutputQuantum = 1e-4, kBusVoltageQuantum = 1e-3;
+
+    // Longest zig-zag varint of a long
+    static final int kMaxVarLongBytes = 10;
+
+    private MacroCompressedCodec() {}
+
+    /**
+     * Streams frames into the compressed encoding. Holds the previous
+     * frame's values, so encoding does not allocate.
+     */
+    public static class Encoder {
+        private final OutputStream out;
+        private final byte[] scratch;
+
+        public final int motorCount;
+        public final int channelMask;
+        public final double positionQuantum;
+
+        // Quantum of each value in a frame
+        private final double[] quanta;
+
+        private int frames = 0;
+        private long lastMicros = 0, lastDeltaMicros = 0;
+        private final long[] lastSteps;
+
+        /**
+         * Writes the header to the stream
+         * 
+         * @param Out Stream to encode to, not closed by the encoder
+         * @param MotorCount Number of positions in each frame
+         * @param SampleRateHint Frames per second the macro is recorded at
+         * @param PositionQuantum Position units per stored step
+         * 
+         * @throws IOException when the stream cannot be written to
+         */
+        public Encoder(OutputStream Out, int MotorCount, double SampleRateHint, double PositionQuantum) throws IOException {
+            this(Out, MotorCount, MacroFileFormat.CHANNEL_POSITION, SampleRateHint, PositionQuantum);
+        }
+
+        /**
+         * Writes the header to the stream
+         * 
+         * @param Out Stream to encode to, not closed by the encoder
+         * @param MotorCount Number of motors in each frame
+         * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits stored for each motor
+         * @param SampleRateHint Frames per second the macro is recorded at
+         * @param PositionQuantum Position units per stored step
+         * 
+         * @throws IOException when the stream cannot be written to
+         */
+        public Encoder(OutputStream Out, int MotorCount, int ChannelMask, double SampleRateHint,
+            double PositionQuantum) throws IOException {
+            if (!(PositionQuantum > 0)) {
+                throw new IllegalArgumentException("Position quantum must be positive");
+            }
+            MacroFileFormat.checkChannels(ChannelMask);
+
+            out = Out;
+            motorCount = MotorCount;
+            channelMask = ChannelMask;
+            positionQuantum = PositionQuantum;
+
+            quanta = quanta(MotorCount, ChannelMask, PositionQuantum);
+            lastSteps = new long[quanta.length];
+            scratch = new byte[Math.max(HEADER_BYTES, kMaxVarLongBytes * (quanta.length + 1))];
+
+            ByteBuffer header = ByteBuffer.wrap(scratch).order(MacroFileFormat.BYTE_ORDER);
+            header.putInt(MAGIC);
+            header.putInt(VERSION);
+            header.putInt(MotorCount);
+            header.putInt(ChannelMask);
+            header.putDouble(SampleRateHint);
+            header.putDouble(PositionQuantum);
+
+            out.write(scratch, 0, HEADER_BYTES);
+        }
+
+        /**
+         * Encodes a single frame
+         * 
+         * @param timeSeconds Macro time of the frame
+         * @param values Each motor's channels in order, just positions
+         * unless the encoder was made with more channels
+         * 
+         * @throws IOException when the stream cannot be written to
+         */
+        public void encode(double timeSeconds, double[] values) throws IOException {
+            long micros = Math.round(timeSeconds * 1e6);
+
+            // First frame stores the time, second the delta, then delta of delta
+            long delta = micros - lastMicros;
+            long value = frames == 0 ? micros : frames == 1 ? delta : delta - lastDeltaMicros;
+
+            int length = writeVarLong(scratch, 0, zigZag(value));
+
+            for (int v = 0; v < quanta.length; v++) {
+                long steps = Math.round(values[v] / quanta[v]);
+
+                length = writeVarLong(scratch, length, zigZag(steps - lastSteps[v]));
+                lastSteps[v] = steps;
+            }
+
+            out.write(scratch, 0, length);
+
+            lastDeltaMicros = frames == 0 ? 0 : delta;
+            lastMicros = micros;
+            frames++;
+        }
+
+        /**
+         * @return number of frames encoded so far
+         */
+        public int getFrameCount() {
+            return frames;
+        }
+    }
+
+    /**
+     * Decodes a whole compressed macro. A partially written final frame,
+     * for example from power being lost while recording, is ignored.
+     * 
+     * @param data Contents of a compressed macro file
+     * 
+     * @return the decoded macro
+     * 
+     * @throws IOException when the data is not a compressed macro
+     */
+    public static MacroTrack decode(byte[] data) throws IOException {
+        if (data.length < HEADER_BYTES) {
+            throw new IOException("Compressed macro is too short to hold a header");
+        }
+
+        ByteBuffer header = ByteBuffer.wrap(data, 0, HEADER_BYTES).order(MacroFileFormat.BYTE_ORDER);
+
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a compressed macro file");
+        }
+
+        int version = header.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported compressed macro version " + version);
+        }
+
+        int motorCount = header.getInt();
+        int channelMask = header.getInt();
+        double sampleRateHint = header.getDouble();
+        double positionQuantum = header.getDouble();
+
+        // Reserved before version 2
+        if (version < 2) {
+            channelMask = MacroFileFormat.CHANNEL_POSITION;
+        }
+        MacroFileFormat.checkLayout(motorCount, channelMask);
+        if (!(positionQuantum > 0)) {
+            throw new IOException("Bad compressed macro position quantum " + positionQuantum);
+        }
+
+        double[] quanta = quanta(motorCount, channelMask, positionQuantum);
+        int valueCount = quanta.length;
+
+        // Every value takes at least a byte, which bounds the frame count
+        int maxFrames = (data.length - HEADER_BYTES) / (valueCount + 1);
+
+        double[] times = new double[maxFrames];
+        double[] values = new double[maxFrames * valueCount];
+        long[] steps = new long[valueCount];
+
+        int frames = 0;
+        long micros = 0, delta = 0;
+
+        // Read position, kept in an array so readVarLong can advance it
+        int[] offset = {HEADER_BYTES};
+
+        while (offset[0] < data.length) {
+            long value = unZigZag(readVarLong(data, offset));
+            if (offset[0] < 0) {
+                break;
+            }
+
+            if (frames == 0) {
+                micros = value;
+            } else {
+                delta = frames == 1 ? value : delta + value;
+                micros += delta;
+            }
+
+            int base = frames * valueCount;
+            boolean complete = true;
+
+            for (int v = 0; v < valueCount; v++) {
+                long stepDelta = unZigZag(readVarLong(data, offset));
+                if (offset[0] < 0) {
+                    complete = false;
+                    break;
+                }
+
+                steps[v] += stepDelta;
+                values[base + v] = steps[v] * quanta[v];
+            }
+
+            if (!complete) {
+                break;
+            }
+
+            times[frames] = micros / 1e6;
+            frames++;
+        }
+
+        return new MacroTrack(motorCount, channelMask, frames, sampleRateHint,
+            Arrays.copyOf(times, frames), Arrays.copyOf(values, frames * valueCount));
+    }
+
+    /**
+     * @return the quantum of every value in a frame, each motor's
+     * channels in order
+     */
+    static double[] quanta(int motorCount, int channelMask, double positionQuantum) {
+        int channelCount = MacroFileFormat.channelCount(channelMask);
+        double[] quanta = new double[motorCount * channelCount];
+
+        for (int m = 0; m < motorCount; m++) {
+            int v = m * channelCount;
+
+            quanta[v++] = positionQuantum;
+            if ((channelMask & MacroFileFormat.CHANNEL_VELOCITY) != 0) {
+                quanta[v++] = kVelocityQuantum;
+            }
+            if ((channelMask & MacroFileFormat.CHANNEL_APPLIED_OUTPUT) != 0) {
+                quanta[v++] = kAppliedOutputQuantum;
+            }
+            if ((channelMask & MacroFileFormat.CHANNEL_BUS_VOLTAGE) != 0) {
+                quanta[v++] = kBusVoltageQuantum;
+            }
+        }
+
+        return quanta;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * @return offset after the written varint
+     */
+    static int writeVarLong(byte[] buffer, int offset, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[offset++] = (byte) value;
+
+        return offset;
+    }
+
+    /**
+     * Reads a varint, advancing offset[0]. Sets offset[0] to -1 if the
+     * data ends partway through the varint.
+     */
+    static long readVarLong(byte[] data, int[] offset) {
+        long value = 0;
+        int position = offset[0];
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= data.length) {
+                offset[0] = -1;
+                return 0;
+            }
+
+            byte b = data[position++];
+            value |= (long) (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0) {
+                offset[0] = position;
+                return value;
+            }
+        }
+
+        offset[0] = -1;
+        return 0;
+    }
+}
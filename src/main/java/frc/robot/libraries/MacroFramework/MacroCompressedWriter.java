@@ -0,0 +1,87 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes frames in the compressed macro format. Like
+ * {@link MacroBinaryWriter}, frames go to a temporary file that
+ * replaces the macro when the writer is closed.
+ * 
+ * @see MacroCompressedCodec
+ */
+public class MacroCompressedWriter implements MacroFrameWriter {
+
+    private final Path target, temporary;
+    private final FileOutputStream stream;
+    private final BufferedOutputStream buffered;
+    private final MacroCompressedCodec.Encoder encoder;
+
+    /**
+     * Creates the temporary file and writes the header.
+     * 
+     * @param MacroFile File to write to
+     * @param MotorCount Number of positions stored in each frame
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * @param PositionQuantum Position units per stored step
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    public MacroCompressedWriter(File MacroFile, int MotorCount, double SampleRateHint, double PositionQuantum) throws IOException {
+        this(MacroFile, MotorCount, MacroFileFormat.CHANNEL_POSITION, SampleRateHint, PositionQuantum);
+    }
+
+    /**
+     * Creates the temporary file and writes the header.
+     * 
+     * @param MacroFile File to write to
+     * @param MotorCount Number of motors stored in each frame
+     * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits stored for each motor
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * @param PositionQuantum Position units per stored step
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    public MacroCompressedWriter(File MacroFile, int MotorCount, int ChannelMask, double SampleRateHint,
+        double PositionQuantum) throws IOException {
+        target = MacroFile.toPath();
+        temporary = target.resolveSibling(MacroFile.getName() + ".tmp");
+
+        stream = new FileOutputStream(temporary.toFile(), false);
+        buffered = new BufferedOutputStream(stream);
+        encoder = new MacroCompressedCodec.Encoder(buffered, MotorCount, ChannelMask, SampleRateHint, PositionQuantum);
+    }
+
+    @Override
+    public void writeFrame(double timeSeconds, double[] positions) throws IOException {
+        encoder.encode(timeSeconds, positions);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        buffered.flush();
+        stream.getFD().sync();
+    }
+
+    /**
+     * Flushes buffered frames, closes the file and moves it over the macro.
+     * If any of that fails the temporary file is deleted and the old macro
+     * is left alone.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            buffered.close();
+
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            MacroBinaryWriter.deleteTemporary(temporary, e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reports how well macros compress with {@link MacroCompressedCodec},
+ * and how fast they decode.
+ * 
+ * <p>Can be ran from the command line with;
+ * {@code MacroCompressionReport [positionQuantum] <macro files...>}
+ */
+public final class MacroCompressionReport {
+
+    // Enough decodes to get past JIT warm up
+    static final int kDecodeIterations = 200;
+
+    public final String name;
+    public final int frameCount;
+    public final long textBytes, binaryBytes, compressedBytes;
+    public final double maxPositionError;
+    public final double decodeFramesPerSecond, decodeMegabytesPerSecond;
+
+    private MacroCompressionReport(String Name, int FrameCount, long TextBytes, long BinaryBytes,
+            long CompressedBytes, double MaxPositionError, double DecodeFramesPerSecond, double DecodeMegabytesPerSecond) {
+        name = Name;
+        frameCount = FrameCount;
+        textBytes = TextBytes;
+        binaryBytes = BinaryBytes;
+        compressedBytes = CompressedBytes;
+        maxPositionError = MaxPositionError;
+        decodeFramesPerSecond = DecodeFramesPerSecond;
+        decodeMegabytesPerSecond = DecodeMegabytesPerSecond;
+    }
+
+    /**
+     * Compresses a macro in memory and measures the result
+     * 
+     * @param Name Label for the report
+     * @param Track Macro to compress
+     * @param PositionQuantum Position units per stored step
+     * 
+     * @return the report
+     * 
+     * @throws IOException if the macro cannot be encoded
+     */
+    public static MacroCompressionReport measure(String Name, MacroFrameSource Track, double PositionQuantum) throws IOException {
+        int motorCount = Track.getMotorCount();
+        int frameCount = Track.getFrameCount();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MacroCompressedCodec.Encoder encoder = new MacroCompressedCodec.Encoder(out, motorCount, 50, PositionQuantum);
+
+        long textBytes = 0;
+        double[] frame = new double[motorCount];
+
+        for (int f = 0; f < frameCount; f++) {
+            String line = "" + Track.getTime(f);
+
+            for (int m = 0; m < motorCount; m++) {
+                frame[m] = Track.getPosition(f, m);
+                line += "," + frame[m];
+            }
+
+            textBytes += line.length() + 1;
+            encoder.encode(Track.getTime(f), frame);
+        }
+
+        byte[] compressed = out.toByteArray();
+
+        MacroTrack decoded = MacroCompressedCodec.decode(compressed);
+
+        double maxError = 0;
+        for (int f = 0; f < frameCount; f++) {
+            for (int m = 0; m < motorCount; m++) {
+                maxError = Math.max(maxError, Math.abs(decoded.getPosition(f, m) - Track.getPosition(f, m)));
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < kDecodeIterations; i++) {
+            MacroCompressedCodec.decode(compressed);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        return new MacroCompressionReport(Name, frameCount, textBytes,
+            MacroFileFormat.HEADER_BYTES + (long) frameCount * MacroFileFormat.frameBytes(motorCount),
+            compressed.length, maxError,
+            frameCount * (double) kDecodeIterations / seconds,
+            compressed.length * (double) kDecodeIterations / seconds / 1e6);
+    }
+
+    /**
+     * @return compressed size as a fraction of the fixed-width binary size
+     */
+    public double binaryRatio() {
+        return binaryBytes == 0 ? 0 : compressedBytes / (double) binaryBytes;
+    }
+
+    /**
+     * @return compressed size as a fraction of the text size
+     */
+    public double textRatio() {
+        return textBytes == 0 ? 0 : compressedBytes / (double) textBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s: %d frames, text %d B, binary %d B, compressed %d B (%.1f%% of binary, %.1f%% of text), "
+                + "max error %.3g, decode %.0f frames/s (%.1f MB/s)",
+            name, frameCount, textBytes, binaryBytes, compressedBytes,
+            binaryRatio() * 100, textRatio() * 100, maxPositionError,
+            decodeFramesPerSecond, decodeMegabytesPerSecond);
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: MacroCompressionReport [positionQuantum] <macro files...>");
+            System.exit(1);
+        }
+
+        double quantum = MacroCompressedCodec.kDefaultPositionQuantum;
+        int first = 0;
+
+        try {
+            quantum = Double.parseDouble(args[0]);
+            first = 1;
+        } catch (NumberFormatException e) {
+            // First argument is a file
+        }
+
+        for (int i = first; i < args.length; i++) {
+            File file = new File(args[i]);
+            System.out.println(measure(file.getName(), MacroTrack.load(file), quantum));
+        }
+    }
+}
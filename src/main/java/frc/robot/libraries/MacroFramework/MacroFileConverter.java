@@ -0,0 +1,80 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Converts legacy text macros into the binary macro format.
+ * 
+ * <p>Can be ran from the command line with;
+ * {@code MacroFileConverter <input.txt> [output.macro] [sampleRateHint]}
+ */
+public final class MacroFileConverter {
+
+    /**
+     * Sample rate assumed when none is given, the default robot loop rate
+     */
+    public static final double kDefaultSampleRateHint = 50;
+
+    private MacroFileConverter() {}
+
+    /**
+     * Converts a text macro into a binary macro
+     * 
+     * @param TextFile Legacy text macro to read
+     * @param BinaryFile Binary macro to write, overwritten if it exists
+     * @param SampleRateHint Frames per second the macro was recorded at
+     * 
+     * @return number of frames converted
+     * 
+     * @throws IOException when either file cannot be accessed, or the text
+     * macro is malformed
+     */
+    public static int convert(File TextFile, File BinaryFile, double SampleRateHint) throws IOException {
+        int frames = 0;
+
+        try (MacroTextReader reader = new MacroTextReader(TextFile);
+             MacroBinaryWriter writer = new MacroBinaryWriter(BinaryFile, reader.motorCount, SampleRateHint)) {
+
+            double[] positions = new double[reader.motorCount];
+
+            while (reader.hasNext()) {
+                double time = reader.readFrame(positions);
+                writer.writeFrame(time, positions);
+                frames++;
+            }
+        }
+
+        return frames;
+    }
+
+    /**
+     * @param textFile Legacy text macro file
+     * @return the file a converted binary macro should be written to,
+     * next to the text macro
+     */
+    public static File binaryFileFor(File textFile) {
+        String name = textFile.getName();
+
+        if (name.endsWith(MacroFormat.TEXT.extension)) {
+            name = name.substring(0, name.length() - MacroFormat.TEXT.extension.length());
+        }
+
+        return new File(textFile.getParentFile(), name + MacroFormat.BINARY.extension);
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: MacroFileConverter <input.txt> [output.macro] [sampleRateHint]");
+            System.exit(1);
+        }
+
+        File input = new File(args[0]);
+        File output = args.length > 1 ? new File(args[1]) : binaryFileFor(input);
+        double sampleRateHint = args.length > 2 ? Double.parseDouble(args[2]) : kDefaultSampleRateHint;
+
+        int frames = convert(input, output, sampleRateHint);
+
+        System.out.println("Converted " + frames + " frames from " + input + " to " + output);
+    }
+}
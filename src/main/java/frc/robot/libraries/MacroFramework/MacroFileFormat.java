@@ -0,0 +1,199 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Layout of the binary macro format.
+ * 
+ * <p>A file starts with a fixed {@value #HEADER_BYTES} byte header;
+ * <pre>
+ * int    magic           'MCRO'
+ * int    version
+ * int    motorCount
+ * int    channelMask     which values each motor has, reserved (0) in version 1
+ * double sampleRateHint  frames per second the macro was recorded at
+ * </pre>
+ * followed by any number of fixed-width frames;
+ * <pre>
+ * double timeSeconds
+ * double value[motorCount][channelCount]
+ * </pre>
+ * Each motor's values are its channels in bit order: position, then
+ * velocity in position units per second, applied output as a duty cycle,
+ * and bus voltage, skipping any not in the mask. Version 1 files only
+ * have positions. All values are little endian. Because every frame is
+ * the same width, frame {@code i} starts at
+ * {@code HEADER_BYTES + i * frameBytes(motorCount, channelMask)}, which
+ * allows readers to seek straight to any frame.
+ */
+public final class MacroFileFormat {
+
+    public static final int MAGIC = 0x4F52434D; // "MCRO" read as little endian
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 24;
+
+    // Channel bits, every frame has positions
+    public static final int CHANNEL_POSITION = 1;
+    public static final int CHANNEL_VELOCITY = 2;
+    public static final int CHANNEL_APPLIED_OUTPUT = 4;
+    public static final int CHANNEL_BUS_VOLTAGE = 8;
+    public static final int ALL_CHANNELS = 15;
+
+    // Far past any robot, anything bigger in a header is corruption
+    public static final int MAX_MOTORS = 4096;
+
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private MacroFileFormat() {}
+
+    /**
+     * @param motorCount Number of motors stored in each frame
+     * @return the width of a single frame in bytes
+     */
+    public static int frameBytes(int motorCount) {
+        return frameBytes(motorCount, CHANNEL_POSITION);
+    }
+
+    /**
+     * @param motorCount Number of motors stored in each frame
+     * @param channelMask Channels stored for each motor
+     * @return the width of a single frame in bytes
+     */
+    public static int frameBytes(int motorCount, int channelMask) {
+        return Double.BYTES * (1 + motorCount * channelCount(channelMask));
+    }
+
+    /**
+     * @param channelMask Channels stored for each motor
+     * @return number of values stored for each motor
+     */
+    public static int channelCount(int channelMask) {
+        return Integer.bitCount(channelMask & ALL_CHANNELS);
+    }
+
+    /**
+     * @param channelMask Channels stored for each motor
+     * @param channel A single CHANNEL_ bit
+     * @return index of the channel within a motor's values, or -1 if
+     * it isn't stored
+     */
+    public static int channelIndex(int channelMask, int channel) {
+        return (channelMask & channel) == 0 ? -1 : Integer.bitCount(channelMask & (channel - 1));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the mask is missing positions
+     * or has unknown channels
+     */
+    public static void checkChannels(int channelMask) {
+        if ((channelMask & CHANNEL_POSITION) == 0 || (channelMask & ~ALL_CHANNELS) != 0) {
+            throw new IllegalArgumentException("Bad macro channel mask " + channelMask);
+        }
+    }
+
+    /**
+     * Checks a motor count and channel mask read from a file, before
+     * anything is sized from them
+     * 
+     * @throws IOException if either is out of range
+     */
+    public static void checkLayout(int motorCount, int channelMask) throws IOException {
+        if (motorCount <= 0 || motorCount > MAX_MOTORS) {
+            throw new IOException("Bad macro motor count " + motorCount);
+        }
+        if ((channelMask & CHANNEL_POSITION) == 0 || (channelMask & ~ALL_CHANNELS) != 0) {
+            throw new IOException("Unsupported macro channels " + channelMask);
+        }
+    }
+
+    /**
+     * Parsed contents of a binary macro header
+     */
+    public static class Header {
+        public final int version;
+        public final int motorCount;
+        public final int channelMask;
+        public final double sampleRateHint;
+
+        public Header(int Version, int MotorCount, double SampleRateHint) {
+            this(Version, MotorCount, CHANNEL_POSITION, SampleRateHint);
+        }
+
+        public Header(int Version, int MotorCount, int ChannelMask, double SampleRateHint) {
+            checkChannels(ChannelMask);
+
+            version = Version;
+            motorCount = MotorCount;
+            channelMask = ChannelMask;
+            sampleRateHint = SampleRateHint;
+        }
+
+        /**
+         * @return the width of a single frame in bytes
+         */
+        public int frameBytes() {
+            return MacroFileFormat.frameBytes(motorCount, channelMask);
+        }
+
+        /**
+         * @return number of values stored for each motor
+         */
+        public int channelCount() {
+            return MacroFileFormat.channelCount(channelMask);
+        }
+
+        /**
+         * Writes this header at the current position of the buffer
+         * 
+         * @param buffer Buffer with at least {@value MacroFileFormat#HEADER_BYTES}
+         * bytes remaining, in {@link MacroFileFormat#BYTE_ORDER}
+         */
+        public void write(ByteBuffer buffer) {
+            buffer.putInt(MAGIC);
+            buffer.putInt(version);
+            buffer.putInt(motorCount);
+            buffer.putInt(version >= 2 ? channelMask : 0);
+            buffer.putDouble(sampleRateHint);
+        }
+
+        /**
+         * Reads a header from the current position of the buffer
+         * 
+         * @param buffer Buffer with at least {@value MacroFileFormat#HEADER_BYTES}
+         * bytes remaining, in {@link MacroFileFormat#BYTE_ORDER}
+         * 
+         * @return the parsed header
+         * 
+         * @throws IOException if the buffer does not hold a supported macro
+         * header, or the header's motor count or channels are out of range
+         */
+        public static Header read(ByteBuffer buffer) throws IOException {
+            if (buffer.remaining() < HEADER_BYTES) {
+                throw new IOException("Macro file is too short to hold a header");
+            }
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary macro file");
+            }
+
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported macro file version " + version);
+            }
+
+            int motorCount = buffer.getInt();
+            int channelMask = buffer.getInt();
+            double sampleRateHint = buffer.getDouble();
+
+            // Reserved before version 2
+            if (version < 2) {
+                channelMask = CHANNEL_POSITION;
+            }
+            checkLayout(motorCount, channelMask);
+
+            return new Header(version, motorCount, channelMask, sampleRateHint);
+        }
+    }
+}
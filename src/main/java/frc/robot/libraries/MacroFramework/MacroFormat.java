@@ -0,0 +1,51 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * Storage formats a macro can be recorded to and read from.
+ */
+public enum MacroFormat {
+    /**
+     * Legacy comma separated text, one frame per line in the form
+     * {@code time,position0,position1,...}
+     */
+    TEXT(".txt"),
+
+    /**
+     * Versioned fixed-width binary frames.
+     * 
+     * @see MacroFileFormat
+     */
+    BINARY(".macro"),
+
+    /**
+     * Quantized, delta encoded variable width frames. Lossy, but a
+     * fraction of the size of the other formats.
+     * 
+     * @see MacroCompressedCodec
+     */
+    COMPRESSED(".macroz");
+
+    /**
+     * File extension (including the dot) used for this format
+     */
+    public final String extension;
+
+    MacroFormat(String Extension) {
+        extension = Extension;
+    }
+
+    /**
+     * @param fileName Name of a macro file
+     * @return the format matching the file extension, or null if
+     * the file is not a macro file
+     */
+    public static MacroFormat fromFileName(String fileName) {
+        for (MacroFormat format : values()) {
+            if (fileName.endsWith(format.extension)) {
+                return format;
+            }
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,56 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * Random access view of a macro's frames, for {@link MacroPlayback}
+ */
+public interface MacroFrameSource {
+
+    /**
+     * @return number of positions in each frame
+     */
+    int getMotorCount();
+
+    /**
+     * @return number of frames
+     */
+    int getFrameCount();
+
+    /**
+     * @param frame Index of the frame
+     * @return the time the frame was recorded at
+     */
+    double getTime(int frame);
+
+    /**
+     * @param frame Index of the frame
+     * @param motor Index of the motor within the group
+     * @return the recorded position of the motor
+     */
+    double getPosition(int frame, int motor);
+
+    /**
+     * @return {@link MacroFileFormat} CHANNEL_ bits of the values recorded
+     * for each motor
+     */
+    default int getChannelMask() {
+        return MacroFileFormat.CHANNEL_POSITION;
+    }
+
+    /**
+     * @param frame Index of the frame
+     * @param motor Index of the motor within the group
+     * @param channel A single {@link MacroFileFormat} CHANNEL_ bit
+     * @return the recorded value, or NaN if the channel wasn't recorded
+     */
+    default double getValue(int frame, int motor, int channel) {
+        return channel == MacroFileFormat.CHANNEL_POSITION ? getPosition(frame, motor) : Double.NaN;
+    }
+
+    /**
+     * @return time of the last frame, or 0 for an empty macro
+     */
+    default double getDuration() {
+        int frameCount = getFrameCount();
+        return frameCount == 0 ? 0 : getTime(frameCount - 1);
+    }
+}
@@ -0,0 +1,97 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Destination for recorded macro frames
+ */
+public interface MacroFrameWriter extends Closeable {
+
+    /**
+     * Appends a single frame
+     * 
+     * @param timeSeconds Macro time of the frame
+     * @param positions Motor positions, at least as long as the motor count
+     * the writer was created with. For writers created with more channels,
+     * each motor's channels in {@link MacroFileFormat} order
+     * 
+     * @throws IOException when the frame cannot be written
+     */
+    void writeFrame(double timeSeconds, double[] positions) throws IOException;
+
+    /**
+     * Writes any buffered frames and forces them onto the storage device,
+     * so they survive the robot losing power.
+     * 
+     * @throws IOException when the file cannot be written to
+     */
+    void sync() throws IOException;
+
+    /**
+     * Creates a writer for the given format, truncating the file
+     * 
+     * @param Format Format to write
+     * @param MacroFile File to write to
+     * @param MotorCount Number of positions stored in each frame
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * 
+     * @return the new writer
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    static MacroFrameWriter create(MacroFormat Format, File MacroFile, int MotorCount, double SampleRateHint) throws IOException {
+        return create(Format, MacroFile, MotorCount, SampleRateHint, MacroCompressedCodec.kDefaultPositionQuantum);
+    }
+
+    /**
+     * Creates a writer for the given format, truncating the file
+     * 
+     * @param Format Format to write
+     * @param MacroFile File to write to
+     * @param MotorCount Number of positions stored in each frame
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * @param PositionQuantum Position units per stored step, only used by
+     * the {@link MacroFormat#COMPRESSED} format
+     * 
+     * @return the new writer
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    static MacroFrameWriter create(MacroFormat Format, File MacroFile, int MotorCount, double SampleRateHint, double PositionQuantum) throws IOException {
+        return create(Format, MacroFile, MotorCount, MacroFileFormat.CHANNEL_POSITION, SampleRateHint, PositionQuantum);
+    }
+
+    /**
+     * Creates a writer for the given format, truncating the file
+     * 
+     * @param Format Format to write
+     * @param MacroFile File to write to
+     * @param MotorCount Number of motors stored in each frame
+     * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits stored for
+     * each motor. The {@link MacroFormat#TEXT} format only holds positions
+     * @param SampleRateHint Frames per second the macro is expected to be recorded at
+     * @param PositionQuantum Position units per stored step, only used by
+     * the {@link MacroFormat#COMPRESSED} format
+     * 
+     * @return the new writer
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    static MacroFrameWriter create(MacroFormat Format, File MacroFile, int MotorCount, int ChannelMask,
+        double SampleRateHint, double PositionQuantum) throws IOException {
+        switch (Format) {
+            case COMPRESSED:
+                return new MacroCompressedWriter(MacroFile, MotorCount, ChannelMask, SampleRateHint, PositionQuantum);
+            case BINARY:
+                return new MacroBinaryWriter(MacroFile, MotorCount, ChannelMask, SampleRateHint);
+            case TEXT:
+            default:
+                if (ChannelMask != MacroFileFormat.CHANNEL_POSITION) {
+                    throw new IllegalArgumentException("Text macros can only hold positions, record to BINARY or COMPRESSED");
+                }
+                return new MacroTextWriter(MacroFile, MotorCount);
+        }
+    }
+}
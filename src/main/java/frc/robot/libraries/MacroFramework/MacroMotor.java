@@ -0,0 +1,61 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * A motor with an encoder, as seen by a macro group. Recording only
+ * reads positions and playback only sets duty cycles, so anything that
+ * can do that can be recorded and played back, real or simulated.
+ * 
+ * @see SparkMaxMacroMotor
+ * @see SimulatedMacroMotor
+ * @see OnboardPositionLoop
+ */
+public interface MacroMotor {
+
+    /**
+     * @return encoder position, in rotations unless the encoder was set
+     * up with a conversion factor
+     */
+    double getPosition();
+
+    /**
+     * @return encoder velocity, in RPM unless the encoder was set up with
+     * a conversion factor
+     */
+    double getVelocity();
+
+    /**
+     * @param position Position the encoder should read from now on
+     */
+    void setPosition(double position);
+
+    /**
+     * @param speed Duty cycle from -1 to 1
+     */
+    void set(double speed);
+
+    /**
+     * @return output the motor controller is applying, as a duty cycle,
+     * or NaN if the motor can't tell
+     */
+    default double getAppliedOutput() {
+        return Double.NaN;
+    }
+
+    /**
+     * @return voltage at the motor controller's input, or NaN if the motor
+     * can't tell
+     */
+    default double getBusVoltage() {
+        return Double.NaN;
+    }
+
+    /**
+     * Asks the motor to report the given values at least this often.
+     * Does nothing for motors that are always up to date.
+     * 
+     * @param seconds Time between updates
+     * @param channelMask {@link MacroFileFormat} CHANNEL_ bits that are read
+     */
+    default void setFeedbackPeriod(double seconds, int channelMask) {
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.libraries.MacroFramework;
+
+import frc.robot.libraries.ClockTimer;
+
+/**
+ * Every motor of a group read back to back, stamped with one time.
+ * Recording and playback work off a snapshot rather than reading each
+ * motor as they go, so every value in a frame belongs to the same
+ * moment. Reused every tick, nothing is allocated.
+ */
+public final class MacroMotorSnapshot {
+
+    // MacroMotor velocities are per minute, macros store them per second
+    private static final double kSecondsPerMinute = 60;
+
+    private final MacroMotor[] motors;
+    private final boolean velocity, appliedOutput, busVoltage;
+
+    /**
+     * Channels read for each motor
+     */
+    public final int channelMask;
+
+    /**
+     * Values from the last {@link #capture(ClockTimer)}, each motor's
+     * channels in {@link MacroFileFormat} order. Just one position per
+     * motor for a position only snapshot.
+     */
+    public final double[] values;
+
+    private final int channelCount;
+    private double time = 0;
+
+    /**
+     * Snapshot of positions only
+     * 
+     * @param Motors Motors to read, in channel order
+     */
+    public MacroMotorSnapshot(MacroMotor[] Motors) {
+        this(Motors, MacroFileFormat.CHANNEL_POSITION);
+    }
+
+    /**
+     * @param Motors Motors to read, in channel order
+     * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits to read
+     */
+    public MacroMotorSnapshot(MacroMotor[] Motors, int ChannelMask) {
+        MacroFileFormat.checkChannels(ChannelMask);
+
+        motors = Motors;
+        channelMask = ChannelMask;
+        channelCount = MacroFileFormat.channelCount(ChannelMask);
+
+        velocity = (ChannelMask & MacroFileFormat.CHANNEL_VELOCITY) != 0;
+        appliedOutput = (ChannelMask & MacroFileFormat.CHANNEL_APPLIED_OUTPUT) != 0;
+        busVoltage = (ChannelMask & MacroFileFormat.CHANNEL_BUS_VOLTAGE) != 0;
+
+        values = new double[Motors.length * channelCount];
+    }
+
+    /**
+     * Reads every motor
+     * 
+     * @param Timer Timer the snapshot is stamped with, read once
+     * 
+     * @return time of the snapshot
+     */
+    public double capture(ClockTimer Timer) {
+        time = Timer.get();
+
+        for (int i = 0; i < motors.length; i++) {
+            int v = i * channelCount;
+
+            values[v++] = motors[i].getPosition();
+            if (velocity) {
+                values[v++] = motors[i].getVelocity() / kSecondsPerMinute;
+            }
+            if (appliedOutput) {
+                values[v++] = motors[i].getAppliedOutput();
+            }
+            if (busVoltage) {
+                values[v++] = motors[i].getBusVoltage();
+            }
+        }
+
+        return time;
+    }
+
+    /**
+     * @return time of the last capture
+     */
+    public double getTime() {
+        return time;
+    }
+}
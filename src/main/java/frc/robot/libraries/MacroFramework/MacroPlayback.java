@@ -0,0 +1,306 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * Samples a macro at an arbitrary time. Setpoints come from the real
+ * playback time rather than stepping one frame per loop, so loop jitter
+ * doesn't turn into setpoint jitter.
+ * 
+ * <p>The frame lookup keeps a cursor, so sampling at steadily increasing
+ * times is constant time. Jumping backwards falls back to a binary search.
+ * Sampling does not allocate.
+ * 
+ * @see MacroTrack
+ * @see MappedMacroFile
+ */
+public class MacroPlayback {
+
+    private final MacroFrameSource source;
+
+    private InterpolationMode mode;
+
+    // Index of the frame at or before the last sampled time
+    private int cursor = 0;
+
+    /**
+     * @param Source Macro to play back
+     * @param Mode How to produce positions between frames
+     */
+    public MacroPlayback(MacroFrameSource Source, InterpolationMode Mode) {
+        source = Source;
+        mode = Mode;
+    }
+
+    /**
+     * @return the macro being played back
+     */
+    public MacroFrameSource getSource() {
+        return source;
+    }
+
+    /**
+     * @param Mode How to produce positions between frames
+     */
+    public void setInterpolation(InterpolationMode Mode) {
+        mode = Mode;
+    }
+
+    /**
+     * Moves the cursor back to the start of the macro
+     */
+    public void reset() {
+        cursor = 0;
+    }
+
+    /**
+     * @param timeSeconds Playback time
+     * @return true once the playback time has passed the last frame
+     */
+    public boolean isFinished(double timeSeconds) {
+        return timeSeconds >= source.getDuration();
+    }
+
+    /**
+     * Writes the position of every motor at the given time. Times before
+     * the first frame hold the first frame, and times after the last
+     * frame hold the last frame.
+     * 
+     * @param timeSeconds Playback time
+     * @param positionsOut Array to fill, at least motorCount long
+     * 
+     * @return false if the macro is empty and nothing was written
+     */
+    public boolean sample(double timeSeconds, double[] positionsOut) {
+        return sample(timeSeconds, positionsOut, null);
+    }
+
+    /**
+     * Writes the position and velocity of every motor at the given time,
+     * in position units per second. Macros recorded with velocities use
+     * those, interpolated like the positions. Otherwise velocity is the
+     * slope of the interpolated path; {@link InterpolationMode#STEP} uses
+     * the slope to the next frame, since the motor is really moving
+     * between them. Held positions before the first and after the last
+     * frame have no velocity.
+     * 
+     * @param timeSeconds Playback time
+     * @param positionsOut Array to fill, at least motorCount long
+     * @param velocitiesOut Array to fill, at least motorCount long, or null
+     * 
+     * @return false if the macro is empty and nothing was written
+     */
+    public boolean sample(double timeSeconds, double[] positionsOut, double[] velocitiesOut) {
+        return sample(timeSeconds, positionsOut, velocitiesOut, null);
+    }
+
+    /**
+     * Writes the position, velocity and acceleration of every motor at
+     * the given time. Acceleration is the change in velocity across the
+     * frames around the time, from the recorded velocities if there are
+     * any, otherwise from the slopes through each frame, so it is the
+     * same for every {@link InterpolationMode}.
+     * 
+     * @param timeSeconds Playback time
+     * @param positionsOut Array to fill, at least motorCount long
+     * @param velocitiesOut Array to fill, at least motorCount long, or null
+     * @param accelerationsOut Array to fill, at least motorCount long, or null
+     * 
+     * @return false if the macro is empty and nothing was written
+     * 
+     * @see #sample(double, double[], double[])
+     */
+    public boolean sample(double timeSeconds, double[] positionsOut, double[] velocitiesOut, double[] accelerationsOut) {
+        int frameCount = source.getFrameCount();
+        int motorCount = source.getMotorCount();
+
+        if (frameCount == 0) {
+            return false;
+        }
+
+        int frame = findFrame(timeSeconds);
+        int next = frame + 1;
+
+        double t0 = source.getTime(frame);
+
+        if (next >= frameCount || timeSeconds < t0) {
+            for (int m = 0; m < motorCount; m++) {
+                positionsOut[m] = source.getPosition(frame, m);
+            }
+            if (velocitiesOut != null) {
+                for (int m = 0; m < motorCount; m++) {
+                    velocitiesOut[m] = 0;
+                }
+            }
+            if (accelerationsOut != null) {
+                for (int m = 0; m < motorCount; m++) {
+                    accelerationsOut[m] = 0;
+                }
+            }
+            return true;
+        }
+
+        double t1 = source.getTime(next);
+        double span = t1 - t0;
+        double s = span > 0 ? (timeSeconds - t0) / span : 1;
+        double perSecond = span > 0 ? 1 / span : 0;
+
+        boolean step = mode == InterpolationMode.STEP;
+
+        // Recorded velocities beat anything worked out from positions
+        boolean hasVelocity = (source.getChannelMask() & MacroFileFormat.CHANNEL_VELOCITY) != 0;
+        boolean recordedVelocity = velocitiesOut != null && hasVelocity;
+        boolean slopeVelocity = velocitiesOut != null && !recordedVelocity;
+
+        if (accelerationsOut != null) {
+            for (int m = 0; m < motorCount; m++) {
+                double v0 = hasVelocity ? source.getValue(frame, m, MacroFileFormat.CHANNEL_VELOCITY) : tangent(frame, m);
+                double v1 = hasVelocity ? source.getValue(next, m, MacroFileFormat.CHANNEL_VELOCITY) : tangent(next, m);
+
+                accelerationsOut[m] = (v1 - v0) * perSecond;
+            }
+        }
+
+        if (recordedVelocity) {
+            for (int m = 0; m < motorCount; m++) {
+                double v0 = source.getValue(frame, m, MacroFileFormat.CHANNEL_VELOCITY);
+                double v1 = source.getValue(next, m, MacroFileFormat.CHANNEL_VELOCITY);
+
+                velocitiesOut[m] = step ? v0 : v0 + (v1 - v0) * s;
+            }
+        }
+
+        if (mode != InterpolationMode.CUBIC) {
+            for (int m = 0; m < motorCount; m++) {
+                double p0 = source.getPosition(frame, m);
+                double p1 = source.getPosition(next, m);
+
+                positionsOut[m] = step ? p0 : p0 + (p1 - p0) * s;
+                if (slopeVelocity) {
+                    velocitiesOut[m] = (p1 - p0) * perSecond;
+                }
+            }
+            return true;
+        }
+
+        // Cubic Hermite basis
+        double s2 = s * s, s3 = s2 * s;
+        double h00 = 2 * s3 - 3 * s2 + 1;
+        double h10 = s3 - 2 * s2 + s;
+        double h01 = -2 * s3 + 3 * s2;
+        double h11 = s3 - s2;
+
+        for (int m = 0; m < motorCount; m++) {
+            double p0 = source.getPosition(frame, m);
+            double p1 = source.getPosition(next, m);
+
+            double m0 = tangent(frame, m) * span;
+            double m1 = tangent(next, m) * span;
+
+            positionsOut[m] = h00 * p0 + h10 * m0 + h01 * p1 + h11 * m1;
+
+            if (slopeVelocity) {
+                // Derivative of the basis, per unit of s
+                double d00 = 6 * s2 - 6 * s;
+                double d10 = 3 * s2 - 4 * s + 1;
+                double d11 = 3 * s2 - 2 * s;
+
+                velocitiesOut[m] = (d00 * p0 + d10 * m0 - d00 * p1 + d11 * m1) * perSecond;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes one recorded channel of every motor at the given time,
+     * stepped in {@link InterpolationMode#STEP} and linear otherwise.
+     * Times outside the macro hold the nearest frame.
+     * 
+     * @param timeSeconds Playback time
+     * @param channel One {@link MacroFileFormat} CHANNEL_ bit
+     * @param valuesOut Array to fill, at least motorCount long
+     * 
+     * @return false if the macro is empty or didn't record the channel,
+     * and nothing was written
+     */
+    public boolean sampleChannel(double timeSeconds, int channel, double[] valuesOut) {
+        int frameCount = source.getFrameCount();
+        int motorCount = source.getMotorCount();
+
+        if (frameCount == 0 || (source.getChannelMask() & channel) == 0) {
+            return false;
+        }
+
+        int frame = findFrame(timeSeconds);
+        int next = frame + 1;
+
+        double t0 = source.getTime(frame);
+
+        if (next >= frameCount || timeSeconds < t0 || mode == InterpolationMode.STEP) {
+            for (int m = 0; m < motorCount; m++) {
+                valuesOut[m] = source.getValue(frame, m, channel);
+            }
+            return true;
+        }
+
+        double span = source.getTime(next) - t0;
+        double s = span > 0 ? (timeSeconds - t0) / span : 1;
+
+        for (int m = 0; m < motorCount; m++) {
+            double v0 = source.getValue(frame, m, channel);
+            valuesOut[m] = v0 + (source.getValue(next, m, channel) - v0) * s;
+        }
+        return true;
+    }
+
+    /**
+     * @return index of the last frame at or before the time, or 0 if the
+     * time is before the first frame
+     */
+    int findFrame(double timeSeconds) {
+        int last = source.getFrameCount() - 1;
+
+        if (cursor > last || source.getTime(cursor) > timeSeconds) {
+            // Went backwards, search from scratch
+            cursor = search(timeSeconds);
+            return cursor;
+        }
+
+        // Usually only a frame or two ahead
+        while (cursor < last && source.getTime(cursor + 1) <= timeSeconds) {
+            cursor++;
+        }
+
+        return cursor;
+    }
+
+    private int search(double timeSeconds) {
+        int low = 0, high = source.getFrameCount() - 1, found = 0;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+
+            if (source.getTime(mid) <= timeSeconds) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Slope of a motor's position at a frame, from its neighbouring frames
+     */
+    private double tangent(int frame, int motor) {
+        int before = Math.max(frame - 1, 0);
+        int after = Math.min(frame + 1, source.getFrameCount() - 1);
+
+        double dt = source.getTime(after) - source.getTime(before);
+        if (dt <= 0) {
+            return 0;
+        }
+
+        return (source.getPosition(after, motor) - source.getPosition(before, motor)) / dt;
+    }
+}
@@ -0,0 +1,107 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * Fixed capacity, lock-free ring buffer of macro frames for exactly one
+ * producer thread and one consumer thread. Frames are copied into a
+ * single preallocated {@code double[]}, so neither side allocates.
+ */
+public class MacroRingBuffer {
+
+    private final double[] data;
+
+    /**
+     * Maximum number of frames held at once
+     */
+    public final int capacity;
+
+    /**
+     * Number of values stored per frame, not counting the timestamp
+     */
+    public final int valueCount;
+
+    private final int stride;
+
+    // Only written by the producer. Volatile so the consumer sees frame
+    // data written before the index was published.
+    private volatile long head = 0;
+    // Only written by the consumer
+    private volatile long tail = 0;
+
+    /**
+     * @param Capacity Maximum number of frames held at once
+     * @param ValueCount Number of values stored per frame, not counting the timestamp
+     */
+    public MacroRingBuffer(int Capacity, int ValueCount) {
+        if (Capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be at least 1");
+        }
+
+        capacity = Capacity;
+        valueCount = ValueCount;
+        stride = ValueCount + 1;
+
+        data = new double[Capacity * stride];
+    }
+
+    /**
+     * Copies a frame into the buffer. Producer thread only.
+     * 
+     * @param timeSeconds Time of the frame
+     * @param values Frame values, at least valueCount long
+     * 
+     * @return false if the buffer is full and the frame was not added
+     */
+    public boolean offer(double timeSeconds, double[] values) {
+        long currentHead = head;
+
+        if (currentHead - tail >= capacity) {
+            return false;
+        }
+
+        int offset = (int) (currentHead % capacity) * stride;
+
+        data[offset] = timeSeconds;
+        System.arraycopy(values, 0, data, offset + 1, valueCount);
+
+        head = currentHead + 1; // Publish
+        return true;
+    }
+
+    /**
+     * Copies the oldest frame out of the buffer. Consumer thread only.
+     * 
+     * @param values Array to fill with the frame values, at least valueCount long
+     * 
+     * @return the time of the frame, or NaN if the buffer is empty
+     */
+    public double poll(double[] values) {
+        long currentTail = tail;
+
+        if (currentTail >= head) {
+            return Double.NaN;
+        }
+
+        int offset = (int) (currentTail % capacity) * stride;
+
+        double timeSeconds = data[offset];
+        System.arraycopy(data, offset + 1, values, 0, valueCount);
+
+        tail = currentTail + 1; // Release the slot
+        return timeSeconds;
+    }
+
+    /**
+     * @return number of frames waiting to be polled. Safe to call from
+     * either thread, but may be stale by the time it is used.
+     */
+    public int size() {
+        return (int) (head - tail);
+    }
+
+    /**
+     * @return true if there are no frames waiting to be polled
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,127 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Reads frames from legacy text macro files, written one frame per
+ * line in the form {@code time,position0,position1,...}
+ */
+public class MacroTextReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    private String nextLine;
+
+    /**
+     * Number of positions stored in each frame, taken from the first line
+     */
+    public final int motorCount;
+
+    /**
+     * @param MacroFile Text macro file to read from
+     * 
+     * @throws IOException when the file cannot be read
+     */
+    public MacroTextReader(File MacroFile) throws IOException {
+        reader = new BufferedReader(new FileReader(MacroFile));
+
+        nextLine = nextNonEmptyLine();
+        motorCount = nextLine == null ? 0 : countFields(nextLine) - 1;
+    }
+
+    /**
+     * @return true if readFrame has another frame to return
+     */
+    public boolean hasNext() {
+        return nextLine != null;
+    }
+
+    /**
+     * Reads the next frame
+     * 
+     * @param positions Array to fill with the frame positions, at least
+     * motorCount long
+     * 
+     * @return the time of the frame, or NaN if there are no frames left
+     * 
+     * @throws IOException when the file cannot be read, or a line is malformed
+     */
+    public double readFrame(double[] positions) throws IOException {
+        if (nextLine == null) {
+            return Double.NaN;
+        }
+
+        String line = nextLine;
+        nextLine = nextNonEmptyLine();
+
+        String[] fields = line.split(",");
+        if (fields.length != motorCount + 1) {
+            throw new IOException("Macro line has " + fields.length + " fields, expected " + (motorCount + 1));
+        }
+
+        try {
+            for (int i = 0; i < motorCount; i++) {
+                positions[i] = Double.parseDouble(fields[i + 1].trim());
+            }
+
+            return Double.parseDouble(fields[0].trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed macro line: " + line, e);
+        }
+    }
+
+    /**
+     * Checks whether a text file looks like a macro, without reading past
+     * its first frame
+     *
+     * @param TextFile Text file to check
+     *
+     * @return true if the first non-empty line is a time followed by at
+     * least one position, all numbers
+     *
+     * @throws IOException when the file cannot be read
+     */
+    public static boolean isMacroFile(File TextFile) throws IOException {
+        try (MacroTextReader reader = new MacroTextReader(TextFile)) {
+            if (reader.nextLine == null || reader.motorCount < 1) {
+                return false;
+            }
+
+            try {
+                reader.readFrame(new double[reader.motorCount]);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String nextNonEmptyLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.trim().isEmpty()) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    private static int countFields(String line) {
+        int count = 1;
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) == ',') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
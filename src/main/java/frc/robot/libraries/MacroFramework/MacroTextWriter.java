@@ -0,0 +1,60 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Writes frames in the legacy text macro format, one frame per
+ * line in the form {@code time,position0,position1,...}
+ */
+public class MacroTextWriter implements MacroFrameWriter {
+
+    private final FileOutputStream stream;
+    private final Writer writer;
+
+    public final int motorCount;
+
+    /**
+     * Creates the file, clearing any existing contents
+     * 
+     * @param MacroFile File to write to
+     * @param MotorCount Number of positions stored in each frame
+     * 
+     * @throws IOException when the file cannot be created
+     */
+    public MacroTextWriter(File MacroFile, int MotorCount) throws IOException {
+        motorCount = MotorCount;
+
+        stream = new FileOutputStream(MacroFile, false);
+        writer = new OutputStreamWriter(stream);
+    }
+
+    @Override
+    public void writeFrame(double timeSeconds, double[] positions) throws IOException {
+
+        // Note this method to write the macros, this same format will be read.
+        String toWrite = "" + timeSeconds;
+
+        for (int i = 0; i < motorCount; i++) {
+            toWrite += ("," + positions[i]);
+        }
+
+        toWrite += "\n";
+
+        writer.append(toWrite);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        writer.flush();
+        stream.getFD().sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
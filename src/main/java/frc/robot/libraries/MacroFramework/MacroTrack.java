@@ -0,0 +1,195 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * An entire macro held in memory as primitive columns, so it can be
+ * played back without any file access or parsing.
+ * 
+ * @see MacroPlayback
+ */
+public class MacroTrack implements MacroFrameSource {
+
+    public final int motorCount;
+    public final int channelMask;
+    public final int frameCount;
+    public final double sampleRateHint;
+
+    // Values per motor
+    private final int channelCount;
+
+    // Frame times, in increasing order
+    final double[] times;
+    // Row major, channel c of motor m in frame f is at
+    // (f * motorCount + m) * channelCount + c, same layout as the binary frames
+    final double[] values;
+
+    /**
+     * @param MotorCount Number of positions in each frame
+     * @param FrameCount Number of frames
+     * @param SampleRateHint Frames per second the macro was recorded at
+     * @param Times Frame times, in increasing order
+     * @param Positions Frame positions, row major
+     */
+    public MacroTrack(int MotorCount, int FrameCount, double SampleRateHint, double[] Times, double[] Positions) {
+        this(MotorCount, MacroFileFormat.CHANNEL_POSITION, FrameCount, SampleRateHint, Times, Positions);
+    }
+
+    /**
+     * @param MotorCount Number of motors in each frame
+     * @param ChannelMask {@link MacroFileFormat} CHANNEL_ bits recorded for each motor
+     * @param FrameCount Number of frames
+     * @param SampleRateHint Frames per second the macro was recorded at
+     * @param Times Frame times, in increasing order
+     * @param Values Each motor's channels in bit order, row major
+     */
+    public MacroTrack(int MotorCount, int ChannelMask, int FrameCount, double SampleRateHint, double[] Times, double[] Values) {
+        MacroFileFormat.checkChannels(ChannelMask);
+
+        channelCount = MacroFileFormat.channelCount(ChannelMask);
+
+        if (Times.length < FrameCount || Values.length < FrameCount * MotorCount * channelCount) {
+            throw new IllegalArgumentException("Macro columns are shorter than the frame count");
+        }
+
+        motorCount = MotorCount;
+        channelMask = ChannelMask;
+        frameCount = FrameCount;
+        sampleRateHint = SampleRateHint;
+        times = Times;
+        values = Values;
+    }
+
+    @Override
+    public int getMotorCount() {
+        return motorCount;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public double getTime(int frame) {
+        return times[frame];
+    }
+
+    @Override
+    public double getPosition(int frame, int motor) {
+        return values[(frame * motorCount + motor) * channelCount];
+    }
+
+    @Override
+    public int getChannelMask() {
+        return channelMask;
+    }
+
+    @Override
+    public double getValue(int frame, int motor, int channel) {
+        int index = MacroFileFormat.channelIndex(channelMask, channel);
+        return index < 0 ? Double.NaN : values[(frame * motorCount + motor) * channelCount + index];
+    }
+
+    /**
+     * @return approximate memory held by the track's columns, in bytes
+     */
+    public long sizeBytes() {
+        return (long) Double.BYTES * (times.length + values.length);
+    }
+
+    /**
+     * Loads a whole macro file, choosing the reader from the file extension
+     * 
+     * @param MacroFile Macro file to load
+     * 
+     * @return the loaded track
+     * 
+     * @throws IOException when the file cannot be read or is not a macro file
+     */
+    public static MacroTrack load(File MacroFile) throws IOException {
+        MacroFormat format = MacroFormat.fromFileName(MacroFile.getName());
+
+        if (format == null) {
+            throw new IOException("Unknown macro file type: " + MacroFile);
+        }
+
+        switch (format) {
+            case COMPRESSED:
+                return loadCompressed(MacroFile);
+            case BINARY:
+                return loadBinary(MacroFile);
+            case TEXT:
+            default:
+                return loadText(MacroFile);
+        }
+    }
+
+    /**
+     * @param MacroFile Binary macro file to load
+     * @return the loaded track
+     * @throws IOException when the file cannot be read
+     */
+    public static MacroTrack loadBinary(File MacroFile) throws IOException {
+        try (MacroBinaryReader reader = new MacroBinaryReader(MacroFile)) {
+            int motorCount = reader.getMotorCount();
+            int frameCount = reader.getFrameCount();
+            int valueCount = motorCount * reader.header.channelCount();
+
+            double[] times = new double[frameCount];
+            double[] values = new double[frameCount * valueCount];
+            double[] frame = new double[valueCount];
+
+            for (int f = 0; f < frameCount; f++) {
+                times[f] = reader.readFrame(frame);
+                System.arraycopy(frame, 0, values, f * valueCount, valueCount);
+            }
+
+            return new MacroTrack(motorCount, reader.header.channelMask, frameCount, reader.header.sampleRateHint,
+                times, values);
+        }
+    }
+
+    /**
+     * @param MacroFile Compressed macro file to load
+     * @return the loaded track
+     * @throws IOException when the file cannot be read
+     */
+    public static MacroTrack loadCompressed(File MacroFile) throws IOException {
+        return MacroCompressedCodec.decode(Files.readAllBytes(MacroFile.toPath()));
+    }
+
+    /**
+     * @param MacroFile Legacy text macro file to load
+     * @return the loaded track
+     * @throws IOException when the file cannot be read or is malformed
+     */
+    public static MacroTrack loadText(File MacroFile) throws IOException {
+        try (MacroTextReader reader = new MacroTextReader(MacroFile)) {
+            int motorCount = reader.motorCount;
+            int frameCount = 0;
+
+            // Text macros don't store their length, so grow as we go
+            double[] times = new double[256];
+            double[] positions = new double[256 * motorCount];
+            double[] frame = new double[motorCount];
+
+            while (reader.hasNext()) {
+                if (frameCount == times.length) {
+                    times = Arrays.copyOf(times, times.length * 2);
+                    positions = Arrays.copyOf(positions, times.length * motorCount);
+                }
+
+                times[frameCount] = reader.readFrame(frame);
+                System.arraycopy(frame, 0, positions, frameCount * motorCount, motorCount);
+                frameCount++;
+            }
+
+            return new MacroTrack(motorCount, frameCount, MacroFileConverter.kDefaultSampleRateHint,
+                Arrays.copyOf(times, frameCount), Arrays.copyOf(positions, frameCount * motorCount));
+        }
+    }
+}
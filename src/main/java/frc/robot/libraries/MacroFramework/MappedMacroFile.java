@@ -0,0 +1,139 @@
+package frc.robot.libraries.MacroFramework;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory mapped, read only view of a binary macro file. Frames are read
+ * straight out of the mapping, so nothing is copied or parsed, and any
+ * frame can be accessed directly. Suited to long recordings that would
+ * be wasteful to load into the heap.
+ * 
+ * <p>Mappings are shared: every {@link #open(File)} of the same file
+ * returns the same instance until each caller has closed it. Reads use
+ * absolute indexing, so several playbacks may read one mapping at once.
+ * 
+ * @see MacroFileFormat
+ */
+public class MappedMacroFile implements MacroFrameSource, Closeable {
+
+    // Canonical path to open mapping
+    private static final Map<String, MappedMacroFile> openFiles = new HashMap<String, MappedMacroFile>();
+
+    private final String key;
+    private final long lastModified;
+    private final MappedByteBuffer buffer;
+
+    public final MacroFileFormat.Header header;
+
+    private final int frameBytes;
+    private final int frameCount;
+    private final int channelCount;
+
+    private int references = 0;
+
+    /**
+     * Maps a binary macro file, or shares an existing mapping of it
+     * 
+     * @param MacroFile Binary macro file to map
+     * 
+     * @return the mapping. Call {@link #close()} when finished with it
+     * 
+     * @throws IOException when the file cannot be mapped or is not a binary macro
+     */
+    public static MappedMacroFile open(File MacroFile) throws IOException {
+        String key = MacroFile.getCanonicalPath();
+
+        synchronized (openFiles) {
+            MappedMacroFile mapped = openFiles.get(key);
+
+            // Remap if the file was re-recorded since it was mapped
+            if (mapped == null || mapped.lastModified != MacroFile.lastModified()) {
+                mapped = new MappedMacroFile(key, MacroFile);
+                openFiles.put(key, mapped);
+            }
+
+            mapped.references++;
+            return mapped;
+        }
+    }
+
+    private MappedMacroFile(String Key, File MacroFile) throws IOException {
+        key = Key;
+        lastModified = MacroFile.lastModified();
+
+        try (FileChannel channel = FileChannel.open(MacroFile.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        buffer.order(MacroFileFormat.BYTE_ORDER);
+
+        header = MacroFileFormat.Header.read(buffer.duplicate().order(MacroFileFormat.BYTE_ORDER));
+
+        frameBytes = header.frameBytes();
+        channelCount = header.channelCount();
+        frameCount = (buffer.capacity() - MacroFileFormat.HEADER_BYTES) / frameBytes;
+    }
+
+    @Override
+    public int getMotorCount() {
+        return header.motorCount;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    @Override
+    public double getTime(int frame) {
+        return buffer.getDouble(MacroFileFormat.HEADER_BYTES + frame * frameBytes);
+    }
+
+    @Override
+    public double getPosition(int frame, int motor) {
+        return buffer.getDouble(MacroFileFormat.HEADER_BYTES + frame * frameBytes + Double.BYTES * (1 + motor * channelCount));
+    }
+
+    @Override
+    public int getChannelMask() {
+        return header.channelMask;
+    }
+
+    @Override
+    public double getValue(int frame, int motor, int channel) {
+        int index = MacroFileFormat.channelIndex(header.channelMask, channel);
+        if (index < 0) {
+            return Double.NaN;
+        }
+
+        return buffer.getDouble(MacroFileFormat.HEADER_BYTES + frame * frameBytes
+            + Double.BYTES * (1 + motor * channelCount + index));
+    }
+
+    /**
+     * Releases this caller's reference. The mapping is dropped once
+     * every caller that opened it has closed it.
+     */
+    @Override
+    public void close() {
+        synchronized (openFiles) {
+            if (references == 0) {
+                return;
+            }
+
+            references--;
+
+            if (references == 0 && openFiles.get(key) == this) {
+                openFiles.remove(key);
+            }
+        }
+    }
+}
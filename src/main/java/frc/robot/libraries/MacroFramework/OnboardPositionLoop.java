@@ -0,0 +1,31 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * A {@link MacroMotor} whose controller can close the position loop
+ * itself, used by {@link PlaybackMode#ONBOARD_PID}. Motors that don't
+ * implement this are always driven by the group's own PID.
+ * 
+ * @see SparkMaxMacroMotor
+ * @see SimulatedMacroMotor
+ */
+public interface OnboardPositionLoop extends MacroMotor {
+
+    /**
+     * Sets up the motor controller's own position loop. Only positional
+     * gains are sent, in the controller's units, for a SparkMax duty
+     * cycle per rotation of error, per 1ms loop for I and D.
+     * 
+     * @return false if the loop can't be used this time, and the group
+     * has to close the loop itself
+     */
+    boolean configurePositionPID(double kP, double kI, double kD);
+
+    /**
+     * Drives the motor to a position with its own loop. Only called after
+     * {@link #configurePositionPID(double, double, double)} returned true.
+     * 
+     * @param position Target, in encoder units
+     * @param feedforwardVolts Added to the loop's output
+     */
+    void setPositionReference(double position, double feedforwardVolts);
+}
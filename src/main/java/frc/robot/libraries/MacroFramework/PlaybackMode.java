@@ -0,0 +1,21 @@
+package frc.robot.libraries.MacroFramework;
+
+/**
+ * Where the position loop is closed when a macro is played back
+ */
+public enum PlaybackMode {
+    /**
+     * The group's PID runs on the roboRIO every readFrame() and sets each
+     * motor's duty cycle. Works with any {@link MacroMotor}, but the loop
+     * only runs as often as the robot code does.
+     */
+    ROBORIO_PID,
+
+    /**
+     * Each readFrame() sends the macro position to the motor controller's
+     * own position loop (1kHz on a SparkMax), with feedforward from the
+     * macro's velocity. Motors that aren't an {@link OnboardPositionLoop}
+     * fall back to {@link #ROBORIO_PID}.
+     */
+    ONBOARD_PID
+}
@@ -0,0 +1,220 @@
+package frc.robot.libraries.MacroFramework;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.libraries.Clock;
+
+/**
+ * {@link MacroMotor} backed by a DC motor model spinning an inertia, for
+ * running macros without a robot. The encoder is on the motor shaft like
+ * a NEO's, so it reads motor rotations and RPM.
+ * 
+ * <p>The model is brought up to the current time of its {@link Clock}
+ * whenever it is read or set, holding the last voltage in between, so
+ * nothing has to step it. It uses the exact solution for a constant
+ * voltage rather than integrating, so it is stable at any timestep and
+ * doesn't allocate. Friction isn't modelled.
+ * 
+ * <p>It also has a position loop like a SparkMax's, updating the voltage
+ * every millisecond with the same gain units, so
+ * {@link PlaybackMode#ONBOARD_PID} can be tried out in simulation.
+ */
+public class SimulatedMacroMotor implements OnboardPositionLoop {
+
+    private static final double kRadiansPerRotation = 2 * Math.PI;
+
+    // Rate of the SparkMax's own position loop
+    private static final double kControlPeriod = 0.001;
+
+    private final double nominalVoltage;
+
+    // Motor side dynamics, dw/dt = a * w + b * volts
+    private final double a, b;
+
+    private Clock clock;
+    private double lastTime;
+
+    private double angle = 0, velocity = 0; // Motor shaft, radians
+    private double positionOffset = 0; // Rotations
+    private double voltage = 0;
+
+    // Onboard position loop, only runs after setPositionReference
+    private boolean closedLoop = false;
+    private double kP = 0, kI = 0, kD = 0;
+    private double reference = 0, feedforward = 0;
+    private double integral = 0, lastError = 0;
+    private double controlPhase = 0;
+
+    /**
+     * Motor on the FPGA clock, for WPILib desktop simulation
+     * 
+     * @see #SimulatedMacroMotor(DCMotor, double, double, Clock)
+     */
+    public SimulatedMacroMotor(DCMotor Gearbox, double Gearing, double MomentOfInertia) {
+        this(Gearbox, Gearing, MomentOfInertia, Clock.kFPGA);
+    }
+
+    /**
+     * @param Gearbox Motors driving the load, for example {@code DCMotor.getNEO(2)}
+     * @param Gearing Motor rotations per rotation of the load
+     * @param MomentOfInertia Of the load, in kg m^2
+     * @param Source Clock the model runs on, usually the same
+     * {@link frc.robot.libraries.SimulatedClock} the auto runs on
+     */
+    public SimulatedMacroMotor(DCMotor Gearbox, double Gearing, double MomentOfInertia, Clock Source) {
+        if (!(Gearing > 0) || !(MomentOfInertia > 0)) {
+            throw new IllegalArgumentException("Gearing and moment of inertia must be positive, got "
+                + Gearing + " and " + MomentOfInertia);
+        }
+
+        nominalVoltage = Gearbox.nominalVoltageVolts;
+
+        // Load inertia as the motor sees it through the gearing
+        double motorInertia = MomentOfInertia / (Gearing * Gearing);
+
+        a = -Gearbox.KtNMPerAmp / (Gearbox.KvRadPerSecPerVolt * Gearbox.rOhms * motorInertia);
+        b = Gearbox.KtNMPerAmp / (Gearbox.rOhms * motorInertia);
+
+        clock = Source;
+        lastTime = clock.getSeconds();
+    }
+
+    /**
+     * @param Source Clock to run the model on from now on
+     * 
+     * @return self for chaining
+     */
+    public SimulatedMacroMotor setClock(Clock Source) {
+        clock = Source;
+        lastTime = clock.getSeconds();
+
+        return this;
+    }
+
+    @Override
+    public double getPosition() {
+        update();
+        return position();
+    }
+
+    @Override
+    public double getVelocity() {
+        update();
+        return velocity / kRadiansPerRotation * 60;
+    }
+
+    @Override
+    public void setPosition(double position) {
+        update();
+        positionOffset = angle / kRadiansPerRotation - position;
+
+        // The controller sees the jump, keep it from kicking the D term
+        lastError = reference - position;
+    }
+
+    @Override
+    public void set(double speed) {
+        update();
+        closedLoop = false;
+        voltage = Math.max(-1, Math.min(1, speed)) * nominalVoltage;
+    }
+
+    @Override
+    public boolean configurePositionPID(double KP, double KI, double KD) {
+        kP = KP;
+        kI = KI;
+        kD = KD;
+
+        return true;
+    }
+
+    @Override
+    public void setPositionReference(double position, double feedforwardVolts) {
+        update();
+
+        if (!closedLoop) {
+            closedLoop = true;
+            integral = 0;
+            lastError = position - position();
+            controlPhase = 0;
+        }
+
+        reference = position;
+        feedforward = feedforwardVolts;
+    }
+
+    /**
+     * @return voltage currently applied to the motor
+     */
+    public double getVoltage() {
+        update();
+        return voltage;
+    }
+
+    @Override
+    public double getAppliedOutput() {
+        update();
+        return voltage / nominalVoltage;
+    }
+
+    /**
+     * The simulated battery never sags
+     */
+    @Override
+    public double getBusVoltage() {
+        return nominalVoltage;
+    }
+
+    private double position() {
+        return angle / kRadiansPerRotation - positionOffset;
+    }
+
+    // Runs the model forward to the clock's time
+    private void update() {
+        double now = clock.getSeconds();
+        double dt = now - lastTime;
+        lastTime = now;
+
+        if (!(dt > 0)) {
+            return;
+        }
+
+        if (!closedLoop) {
+            integrate(dt);
+            return;
+        }
+
+        // Voltage only changes on the position loop's ticks
+        while (dt > 0) {
+            double piece = Math.min(dt, kControlPeriod - controlPhase);
+
+            integrate(piece);
+            dt -= piece;
+            controlPhase += piece;
+
+            if (controlPhase >= kControlPeriod - 1e-12) {
+                controlPhase = 0;
+                runPositionLoop();
+            }
+        }
+    }
+
+    // One tick of the SparkMax style loop, I and D are per tick, not per second
+    private void runPositionLoop() {
+        double error = reference - position();
+
+        integral += error;
+        double output = kP * error + kI * integral + kD * (error - lastError) + feedforward / nominalVoltage;
+        lastError = error;
+
+        voltage = Math.max(-1, Math.min(1, output)) * nominalVoltage;
+    }
+
+    // Exact solution at the held voltage
+    private void integrate(double dt) {
+        double decay = Math.exp(a * dt);
+        double freeVelocity = -b * voltage / a;
+
+        angle += freeVelocity * dt + (velocity - freeVelocity) * (decay - 1) / a;
+        velocity = freeVelocity + (velocity - freeVelocity) * decay;
+    }
+}
@@ -0,0 +1,159 @@
+package frc.robot.libraries.MacroFramework;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * {@link MacroMotor} for a {@link CANSparkMax} and its built in encoder.
+ * The encoder handle is looked up once, and positions come from the
+ * SparkMax's periodic status frame, so reading them doesn't wait on
+ * the CAN bus.
+ */
+public class SparkMaxMacroMotor implements OnboardPositionLoop {
+
+    // SparkMax caps status frame periods at this, in ms
+    private static final int kMaxFramePeriod = 65535;
+    // Default rate of status frame 0, it also carries faults, so never slow it down
+    private static final int kDefaultStatus0Period = 10;
+
+    public final CANSparkMax canSparkMax;
+    public final RelativeEncoder encoder;
+    public final SparkMaxPIDController pidController;
+
+    // Last settings sent to the SparkMax, so they aren't sent again
+    private final int[] framePeriods = {-1, -1, -1};
+    private double sentKP = Double.NaN, sentKI = Double.NaN, sentKD = Double.NaN;
+
+    /**
+     * @param CanSparkMax Motor controller to drive
+     */
+    public SparkMaxMacroMotor(CANSparkMax CanSparkMax) {
+        canSparkMax = CanSparkMax;
+        encoder = CanSparkMax.getEncoder();
+        pidController = CanSparkMax.getPIDController();
+    }
+
+    /**
+     * @param CanSparkMaxArr Motor controllers to wrap
+     * @return one adapter per motor controller, in the same order
+     */
+    public static SparkMaxMacroMotor[] wrap(CANSparkMax... CanSparkMaxArr) {
+        SparkMaxMacroMotor[] motors = new SparkMaxMacroMotor[CanSparkMaxArr.length];
+
+        for (int i = 0; i < CanSparkMaxArr.length; i++) {
+            motors[i] = new SparkMaxMacroMotor(CanSparkMaxArr[i]);
+        }
+
+        return motors;
+    }
+
+    @Override
+    public double getPosition() {
+        return encoder.getPosition();
+    }
+
+    @Override
+    public double getVelocity() {
+        return encoder.getVelocity();
+    }
+
+    @Override
+    public void setPosition(double position) {
+        encoder.setPosition(position);
+    }
+
+    @Override
+    public void set(double speed) {
+        canSparkMax.set(speed);
+    }
+
+    @Override
+    public double getAppliedOutput() {
+        return canSparkMax.getAppliedOutput();
+    }
+
+    @Override
+    public double getBusVoltage() {
+        return canSparkMax.getBusVoltage();
+    }
+
+    /**
+     * Sets the period of status frame 2, which carries the position, and
+     * of frame 1 (velocity and bus voltage) and frame 0 (applied output)
+     * if those are read
+     */
+    @Override
+    public void setFeedbackPeriod(double seconds, int channelMask) {
+        int periodMs = (int) Math.max(1, Math.min(kMaxFramePeriod, Math.round(seconds * 1000)));
+
+        setFramePeriod(PeriodicFrame.kStatus2, 2, periodMs);
+
+        if ((channelMask & (MacroFileFormat.CHANNEL_VELOCITY | MacroFileFormat.CHANNEL_BUS_VOLTAGE)) != 0) {
+            setFramePeriod(PeriodicFrame.kStatus1, 1, periodMs);
+        }
+        if ((channelMask & MacroFileFormat.CHANNEL_APPLIED_OUTPUT) != 0) {
+            setFramePeriod(PeriodicFrame.kStatus0, 0, Math.min(periodMs, kDefaultStatus0Period));
+        }
+    }
+
+    private void setFramePeriod(PeriodicFrame frame, int index, int periodMs) {
+        if (periodMs == framePeriods[index]) {
+            return;
+        }
+
+        REVLibError error = canSparkMax.setPeriodicFramePeriod(frame, periodMs);
+        if (error == REVLibError.kOk) {
+            framePeriods[index] = periodMs;
+        } else {
+            DriverStation.reportWarning("SparkMax " + canSparkMax.getDeviceId()
+                + " didn't take a " + periodMs + "ms " + frame + " period: " + error, false);
+        }
+    }
+
+    /**
+     * Sends the gains to PID slot 0. Slot 0's FF gain is left alone, the
+     * macro's feedforward comes in as arbitrary feedforward instead.
+     * Returns false if the SparkMax rejects any of them, so the group
+     * falls back to its own PID.
+     */
+    @Override
+    public boolean configurePositionPID(double kP, double kI, double kD) {
+        if (kP == sentKP && kI == sentKI && kD == sentKD) {
+            return true;
+        }
+
+        REVLibError error = pidController.setP(kP, 0);
+        if (error == REVLibError.kOk) {
+            error = pidController.setI(kI, 0);
+        }
+        if (error == REVLibError.kOk) {
+            error = pidController.setD(kD, 0);
+        }
+
+        if (error != REVLibError.kOk) {
+            // Might be half configured, so the group closes the loop itself this time
+            sentKP = sentKI = sentKD = Double.NaN;
+            DriverStation.reportWarning("SparkMax " + canSparkMax.getDeviceId()
+                + " didn't take its position gains (" + error + "), using roboRIO PID", false);
+            return false;
+        }
+
+        sentKP = kP;
+        sentKI = kI;
+        sentKD = kD;
+
+        return true;
+    }
+
+    @Override
+    public void setPositionReference(double position, double feedforwardVolts) {
+        pidController.setReference(position, ControlType.kPosition, 0, feedforwardVolts, ArbFFUnits.kVoltage);
+    }
+}
@@ -0,0 +1,202 @@
+package frc.robot.libraries;
+
+/**
+ * A bank of PID controllers stored as parallel arrays, one element per
+ * channel, updated together in a single loop, so the update walks a few
+ * contiguous arrays instead of scattered {@link TimedPIDController}
+ * objects. Meant for controlling many motors at once, but it hasn't
+ * measured faster than an array of controllers at the 6 to 8 motors of a
+ * tank or swerve drive, so {@link MacroCANSparkMaxGroup} doesn't use it.
+ * Run PIDBankBenchmark on the robot before switching to it.
+ * 
+ * <p>Each channel behaves like a {@link TimedPIDController}; the timestep
+ * is measured once for the whole bank, or passed in, and the derivative
+ * is low pass filtered. Updating does not allocate.
+ */
+public class PIDBank {
+
+    /**
+     * Number of channels
+     */
+    public final int size;
+
+    // Gains, per channel
+    public final double[] kP, kI, kD, kF;
+    public final double[] tolerance;
+
+    // Set before calling calculate
+    public final double[] input, target;
+
+    // Results and state of the last calculate
+    public final double[] error, integral, derivative, output;
+
+    /**
+     * Time constant of the derivative low pass filter, in seconds, shared
+     * by every channel. 0 disables filtering.
+     */
+    public double derivativeFilter = 0;
+
+    /**
+     * Timestep used by the last update, in seconds
+     */
+    public double lastDt = TimedPIDController.defaultDt;
+
+    private final double[] lastError;
+
+    private double lastTime;
+    private Clock clock = Clock.kSystem;
+    private boolean hasMeasured = false;
+    private boolean hasUpdated = false;
+
+    /**
+     * @param Size number of channels
+     * @param P Proportional gain of every channel
+     * @param I Integral gain of every channel
+     * @param D Derivative gain of every channel
+     * @param F constant added in the direction of every channel's output
+     */
+    public PIDBank(int Size, double P, double I, double D, double F) {
+        size = Size;
+
+        kP = new double[Size];
+        kI = new double[Size];
+        kD = new double[Size];
+        kF = new double[Size];
+        tolerance = new double[Size];
+
+        input = new double[Size];
+        target = new double[Size];
+
+        error = new double[Size];
+        lastError = new double[Size];
+        integral = new double[Size];
+        derivative = new double[Size];
+        output = new double[Size];
+
+        setPID(P, I, D, F);
+    }
+
+    /**
+     * Sets the gains of every channel
+     */
+    public void setPID(double P, double I, double D, double F) {
+        for (int i = 0; i < size; i++) {
+            setPID(i, P, I, D, F);
+        }
+    }
+
+    /**
+     * Sets the gains of a single channel
+     */
+    public void setPID(int channel, double P, double I, double D, double F) {
+        kP[channel] = P;
+        kI[channel] = I;
+        kD[channel] = D;
+        kF[channel] = F;
+    }
+
+    /**
+     * @param Tolerance error within which every channel outputs 0 and clears its integral
+     */
+    public void setTolerance(double Tolerance) {
+        for (int i = 0; i < size; i++) {
+            tolerance[i] = Tolerance;
+        }
+    }
+
+    /**
+     * @param Source clock the timestep is measured on
+     * 
+     * @see TimedPIDController#setClock(Clock)
+     */
+    public void setClock(Clock Source) {
+        clock = Source;
+        hasMeasured = false;
+    }
+
+    /**
+     * Clears every channel's integral, derivative and the timestep history
+     * 
+     * @see TimedPIDController#reset()
+     */
+    public void reset() {
+        hasMeasured = false;
+        hasUpdated = false;
+
+        for (int i = 0; i < size; i++) {
+            integral[i] = 0;
+            derivative[i] = 0;
+            lastError[i] = 0;
+        }
+    }
+
+    /**
+     * Updates every channel, measuring the time since the last update.
+     * Results are written to {@link #output}.
+     * 
+     * @param maximumoutput highest value outputs are limited to
+     * @param minimumoutput lowest value outputs are limited to
+     */
+    public void calculate(double maximumoutput, double minimumoutput) {
+        double now = clock.getSeconds();
+
+        double dt = hasMeasured ? now - lastTime : TimedPIDController.defaultDt;
+        lastTime = now;
+        hasMeasured = true;
+
+        calculate(maximumoutput, minimumoutput, dt);
+    }
+
+    /**
+     * Updates every channel using the given timestep. Results are
+     * written to {@link #output}.
+     * 
+     * @param maximumoutput highest value outputs are limited to
+     * @param minimumoutput lowest value outputs are limited to
+     * @param dt seconds since the last update
+     */
+    public void calculate(double maximumoutput, double minimumoutput, double dt) {
+        if (!(dt > 0)) {
+            dt = lastDt;
+        }
+        lastDt = dt;
+
+        double inverseDt = 1 / dt;
+        double alpha = hasUpdated ? dt / (derivativeFilter + dt) : 0;
+
+        // Locals, so the JIT can drop the field loads and bounds checks
+        // from the loop
+        final double[] kP = this.kP, kI = this.kI, kD = this.kD, kF = this.kF, tolerance = this.tolerance;
+        final double[] input = this.input, target = this.target;
+        final double[] error = this.error, lastError = this.lastError;
+        final double[] integral = this.integral, derivative = this.derivative, output = this.output;
+
+        // One pass over flat arrays. Branches are written as selects so the
+        // loop body stays straight
+        for (int i = 0; i < size; i++) {
+            double e = target[i] - input[i];
+            double previous = lastError[i];
+            double absError = Math.abs(e);
+            double tol = tolerance[i];
+
+            double d = derivative[i];
+            d += alpha * (kD[i] * (e - previous) * inverseDt - d);
+
+            // Like TimedPIDController, clear the integral when the error is zero or within tolerance
+            double integ = (e == 0 || absError <= tol) ? 0 : integral[i] + e * dt * kI[i];
+
+            double pid = e * kP[i] + integ + d;
+            double out = pid + (pid > 0 ? kF[i] : -kF[i]);
+            out = absError < tol ? 0 : out;
+
+            error[i] = e;
+            lastError[i] = e;
+            derivative[i] = d;
+            integral[i] = integ;
+            out = out >= maximumoutput ? maximumoutput : out;
+            output[i] = out <= minimumoutput ? minimumoutput : out;
+        }
+
+        hasUpdated = true;
+    }
+}
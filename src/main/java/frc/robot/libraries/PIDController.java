@@ -1,12 +1,11 @@
 package frc.robot.libraries;
-import edu.wpi.first.wpilibj.Timer;
 
 public class PIDController {
     
     public double pvalue;
     public double ivalue;
     public double dvalue;
-    public Timer startcorrect = new Timer();
+    public ClockTimer startcorrect = new ClockTimer();
     public double kP;
     public double kI;
     public double kD;
@@ -35,6 +34,14 @@ public class PIDController {
         
     }
 
+    /**
+     * Sets the clock the semiAutomate correction delay is timed on
+     * @param clock usually a {@link SimulatedClock} for running off the robot
+     */
+    public void setClock(Clock clock){
+        startcorrect.setClock(clock);
+    }
+
     /**
     * Just to return the values of PID in an array in order P, I, D.
     */
@@ -42,6 +49,18 @@ public class PIDController {
         double[] PIDvalues = new double[] {kP, kI, kD, kF};
         return PIDvalues;
     }
+
+    /**
+    * Same as getPID(), but fills an existing array so nothing is allocated.
+    * @param out array of at least 4 elements
+    */
+    public double[] getPID(double[] out){
+        out[0] = kP;
+        out[1] = kI;
+        out[2] = kD;
+        out[3] = kF;
+        return out;
+    }
     /**
      * this function tells the pid controller where you want your number to be
      * @param target this is where you're trying to get the input to.
@@ -0,0 +1,55 @@
+package frc.robot.libraries;
+
+/**
+ * Clock that stands still until it is advanced. Hand the same one to a
+ * scheduler, its commands and any motor groups, then step it along with
+ * the passes to run an auto as fast as the computer can go, the same
+ * way every time.
+ * 
+ * @see frc.robot.libraries.AutoFramework.AutoSimulationRunner
+ */
+public class SimulatedClock implements Clock {
+
+    private volatile double seconds;
+
+    public SimulatedClock() {
+        this(0);
+    }
+
+    /**
+     * @param Seconds Starting time
+     */
+    public SimulatedClock(double Seconds) {
+        seconds = Seconds;
+    }
+
+    @Override
+    public double getSeconds() {
+        return seconds;
+    }
+
+    @Override
+    public boolean isSimulated() {
+        return true;
+    }
+
+    /**
+     * @param Seconds How far to move time forward, must not be negative
+     */
+    public synchronized void advance(double Seconds) {
+        if (Seconds < 0) {
+            throw new IllegalArgumentException("Simulated time can't go backwards, got " + Seconds);
+        }
+        seconds += Seconds;
+    }
+
+    /**
+     * @param Seconds Time to jump to, must not be before the current time
+     */
+    public synchronized void set(double Seconds) {
+        if (Seconds < seconds) {
+            throw new IllegalArgumentException("Simulated time can't go backwards, " + Seconds + " < " + seconds);
+        }
+        seconds = Seconds;
+    }
+}
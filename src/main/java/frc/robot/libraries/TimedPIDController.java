@@ -0,0 +1,212 @@
+package frc.robot.libraries;
+
+/**
+ * A variant of {@link PIDController} that uses the real time between
+ * updates instead of assuming a fixed 0.05 second timestep, so its gains
+ * mean the same thing at any loop rate; the 20ms robot loop, a jittery
+ * loop under load, or a 5ms addPeriodic callback.
+ * 
+ * <p>The timestep is either measured with a {@link Clock} (the JVM's
+ * monotonic clock unless set) or passed in directly. The derivative is
+ * low pass filtered to keep encoder noise from being amplified by short
+ * timesteps. Nothing on the update path allocates or boxes.
+ */
+public class TimedPIDController {
+
+    /**
+     * Timestep used for the first update after a reset, when there is
+     * no previous update to measure from
+     */
+    public static final double defaultDt = 0.02;
+
+    public double kP;
+    public double kI;
+    public double kD;
+    public double kF;
+
+    /**
+     * Time constant of the derivative low pass filter, in seconds.
+     * 0 disables filtering.
+     */
+    public double derivativeFilter = 0;
+
+    public double input;
+    public double target;
+    public double accepted;
+
+    public double error;
+    public double last_error;
+    public double pvalue;
+    public double ivalue;
+    public double dvalue;
+    public double PID_value;
+    public double final_value;
+
+    /**
+     * Timestep used by the last update, in seconds
+     */
+    public double lastDt = defaultDt;
+
+    private double lastTime;
+    private Clock clock = Clock.kSystem;
+    private boolean hasMeasured = false;
+    private boolean hasUpdated = false;
+
+    /**
+     * @param P Proportional
+     * @param I Integral
+     * @param D Derivative
+     * @param F constant added in the direction of the output
+     */
+    public TimedPIDController(double P, double I, double D, double F) {
+        kP = P;
+        kI = I;
+        kD = D;
+        kF = F;
+    }
+
+    /**
+     * Copies the values of PID into an array in order P, I, D, F,
+     * without allocating
+     * 
+     * @param out array of at least 4 elements
+     * @return out
+     */
+    public double[] getPID(double[] out) {
+        out[0] = kP;
+        out[1] = kI;
+        out[2] = kD;
+        out[3] = kF;
+        return out;
+    }
+
+    public void setTarget(double goal) {
+        target = goal;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    public void setInput(double tobechanged) {
+        input = tobechanged;
+    }
+
+    public double getInput() {
+        return input;
+    }
+
+    /**
+     * @param tolerance error within which the output is 0 and the integral is cleared
+     */
+    public void setTolerance(double tolerance) {
+        accepted = tolerance;
+    }
+
+    public double getTolerance() {
+        return accepted;
+    }
+
+    /**
+     * @param timeConstant time constant of the derivative low pass filter in
+     * seconds, 0 to disable filtering
+     */
+    public void setDerivativeFilter(double timeConstant) {
+        derivativeFilter = timeConstant;
+    }
+
+    /**
+     * @param source clock the timestep is measured on, a {@link SimulatedClock}
+     * when running off the robot
+     */
+    public void setClock(Clock source) {
+        clock = source;
+        hasMeasured = false;
+    }
+
+    /**
+     * Clears the integral, derivative and timestep history. Call this
+     * before the controller starts being updated again after a pause,
+     * so the pause isn't measured as one long timestep.
+     */
+    public void reset() {
+        hasMeasured = false;
+        hasUpdated = false;
+        ivalue = 0;
+        dvalue = 0;
+        last_error = 0;
+    }
+
+    /**
+     * Calculates the output, measuring the time since the last update
+     * 
+     * @param maximumoutput highest value the output is limited to
+     * @param minimumoutput lowest value the output is limited to
+     */
+    public double calculate(double maximumoutput, double minimumoutput) {
+        double now = clock.getSeconds();
+
+        double dt = hasMeasured ? now - lastTime : defaultDt;
+        lastTime = now;
+        hasMeasured = true;
+
+        return calculate(maximumoutput, minimumoutput, dt);
+    }
+
+    /**
+     * Calculates the output using the given timestep
+     * 
+     * @param maximumoutput highest value the output is limited to
+     * @param minimumoutput lowest value the output is limited to
+     * @param dt seconds since the last update
+     */
+    public double calculate(double maximumoutput, double minimumoutput, double dt) {
+        if (!(dt > 0)) {
+            dt = lastDt;
+        }
+        lastDt = dt;
+
+        error = target - input;
+
+        pvalue = error * kP;
+
+        if (hasUpdated) {
+            double rawDerivative = kD * (error - last_error) / dt;
+
+            // First order low pass
+            double alpha = dt / (derivativeFilter + dt);
+            dvalue += alpha * (rawDerivative - dvalue);
+        } else {
+            dvalue = 0;
+        }
+
+        last_error = error;
+        hasUpdated = true;
+
+        // Same reset as PIDController, which updates last_error first, so the
+        // integral only clears when the error is exactly zero or within tolerance
+        if (last_error * error <= 0 || Math.abs(error) <= accepted) {
+            ivalue = 0;
+        } else {
+            ivalue += error * dt * kI;
+        }
+
+        PID_value = pvalue + ivalue + dvalue;
+
+        if (Math.abs(error) < accepted) {
+            final_value = 0;
+        } else if (PID_value > 0) {
+            final_value = PID_value + kF;
+        } else {
+            final_value = PID_value - kF;
+        }
+
+        if (final_value >= maximumoutput) {
+            return maximumoutput;
+        } else if (final_value <= minimumoutput) {
+            return minimumoutput;
+        } else {
+            return final_value;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.libraries.MacroCANSparkMaxGroup;
 
@@ -27,6 +28,16 @@ public class ExampleSubsystem extends SubsystemBase {
     }
 
     testMotor.getEncoder().setPosition(0);
+
+    // Load the macro now so autonomous doesn't have to
+    if (macroTestMotor != null && macroTestMotor.getMacroFile().exists()) {
+      try {
+        macroTestMotor.preload();
+      } catch (IOException e) {
+        DriverStation.reportWarning("Couldn't preload macro " + macroTestMotor.getMacroFile().getName()
+          + ": " + e.getMessage(), false);
+      }
+    }
   }
 
   @Override
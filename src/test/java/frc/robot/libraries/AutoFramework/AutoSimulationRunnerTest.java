@@ -0,0 +1,115 @@
+package frc.robot.libraries.AutoFramework;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.libraries.SimulatedClock;
+
+class AutoSimulationRunnerTest {
+
+    static final double kEpsilon = 1e-9;
+
+    // Keeps the times its first and last execute and its end happened at
+    static class TimedCommand extends AutoCommandBase {
+        final SimulatedClock clock;
+
+        int executeCount = 0, endCount = 0;
+        double firstExecute = Double.NaN, lastExecute = Double.NaN, endTime = Double.NaN;
+
+        TimedCommand(SimulatedClock Clock) {
+            clock = Clock;
+        }
+
+        @Override
+        public void execute() {
+            if (executeCount == 0) {
+                firstExecute = clock.getSeconds();
+            }
+            lastExecute = clock.getSeconds();
+            executeCount++;
+        }
+
+        @Override
+        public void end(boolean interrupted) {
+            endTime = clock.getSeconds();
+            endCount++;
+        }
+    }
+
+    @BeforeAll
+    static void initializeHal() {
+        // The scheduler publishes to SmartDashboard
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @Test
+    void runsWholeAutoOnSimulatedTime() {
+        AutoCommandScheduler scheduler = new AutoCommandScheduler();
+        AutoSimulationRunner runner = new AutoSimulationRunner(scheduler);
+        SimulatedClock clock = runner.getClock();
+
+        TimedCommand window = new TimedCommand(clock);
+        window.declareCondition(scheduler.autoTimeWindow(1, 3));
+
+        TimedCommand always = new TimedCommand(clock);
+        always.declareCondition(() -> true);
+
+        scheduler.setCommands(window, always);
+
+        int[] steps = {0};
+        runner.setOnStep(() -> steps[0]++);
+
+        long start = System.nanoTime();
+        long passes = runner.run();
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        // 15 seconds at the 20ms robot loop, one step after each pass
+        assertEquals(750, passes);
+        assertEquals(750, steps[0]);
+        assertEquals(750, scheduler.getPassCount());
+        assertEquals(15, clock.getSeconds(), kEpsilon);
+        assertTrue(scheduler.isFinished());
+
+        // Open for 2 seconds, ended on the first pass after it closes. Commands
+        // that don't run on the first pass are ended then too, like a fresh endLock
+        assertEquals(1, window.firstExecute, kEpsilon);
+        assertEquals(2.98, window.lastExecute, kEpsilon);
+        assertEquals(100, window.executeCount);
+        assertEquals(3, window.endTime, kEpsilon);
+        assertEquals(2, window.endCount);
+
+        assertEquals(0, always.firstExecute, kEpsilon);
+        assertEquals(14.98, always.lastExecute, kEpsilon);
+        assertEquals(750, always.executeCount);
+        assertEquals(0, always.endCount);
+
+        // Nowhere near the 15 seconds it would take on the robot
+        assertTrue(wallSeconds < 5, "Simulated auto took " + wallSeconds + "s");
+    }
+
+    @Test
+    void samePassesEveryRun() {
+        AutoCommandScheduler scheduler = new AutoCommandScheduler().setAutoLength(2);
+
+        SimulatedClock clock = new SimulatedClock();
+        TimedCommand fast = new TimedCommand(clock);
+        fast.declareCondition(() -> true).declarePeriod(0.005);
+        scheduler.setCommands(fast);
+
+        for (int run = 0; run < 3; run++) {
+            fast.executeCount = 0;
+
+            AutoSimulationRunner runner = new AutoSimulationRunner(scheduler, clock);
+            double start = clock.getSeconds();
+
+            assertEquals(400, runner.run());
+            assertEquals(400, fast.executeCount);
+            assertEquals(start, fast.firstExecute, kEpsilon);
+            assertEquals(start + 2, clock.getSeconds(), kEpsilon);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package frc.robot.libraries;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.libraries.MacroFramework.MacroFileFormat;
+import frc.robot.libraries.MacroFramework.MacroFormat;
+import frc.robot.libraries.MacroFramework.SimulatedMacroMotor;
+
+class MacroPlaybackTrackingTest {
+
+    static final String kName = "MacroPlaybackTrackingTest";
+    static final int kFrames = 300;
+    static final double kPeriod = 0.02;
+
+    // NEO free speed in volts per rotation per second
+    static final double kV = 12 / (DCMotor.getNEO(1).freeSpeedRadPerSec / (2 * Math.PI));
+
+    // Keeps test macros out of the deploy directory, even if a run dies
+    @TempDir
+    File dataDirectory;
+
+    SimulatedClock clock = new SimulatedClock();
+
+    @BeforeAll
+    static void initializeHal() {
+        // The group puts its entries on Shuffleboard
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    SimulatedMacroMotor motor() {
+        return new SimulatedMacroMotor(DCMotor.getNEO(1), 10, 0.05, clock);
+    }
+
+    MacroCANSparkMaxGroup group(SimulatedMacroMotor Motor) throws IOException {
+        return new MacroCANSparkMaxGroup(kName, dataDirectory, Motor).setFormat(MacroFormat.BINARY).setClock(clock);
+    }
+
+    // Fast back and forth driving near full output
+    void record() throws IOException {
+        SimulatedMacroMotor motor = motor();
+        MacroCANSparkMaxGroup recordGroup = group(motor).setRecordChannels(MacroFileFormat.ALL_CHANNELS);
+
+        recordGroup.beginRecord();
+        for (int i = 0; i < kFrames; i++) {
+            motor.set(0.9 * Math.sin(i * 0.08));
+            recordGroup.recordFrame();
+            clock.advance(kPeriod);
+        }
+        recordGroup.endRecord();
+    }
+
+    void play(MacroCANSparkMaxGroup Group) throws IOException {
+        Group.beginRead();
+        for (int i = 0; i < kFrames; i++) {
+            Group.readFrame();
+            clock.advance(kPeriod);
+        }
+        Group.endRead();
+    }
+
+    @Test
+    void feedforwardTracksCloserThanPid() throws IOException {
+        record();
+
+        MacroCANSparkMaxGroup pid = group(motor());
+        play(pid);
+
+        MacroCANSparkMaxGroup feedforward = group(motor()).setFeedforward(new SimpleMotorFeedforward(0, kV, 0.02));
+        play(feedforward);
+
+        // The default kP alone falls well behind
+        assertTrue(pid.getTrackingRMS() > 5, "PID RMS " + pid.getTrackingRMS());
+        assertTrue(feedforward.getTrackingRMS() < pid.getTrackingRMS() / 4,
+            "Feedforward RMS " + feedforward.getTrackingRMS() + " vs PID RMS " + pid.getTrackingRMS());
+        assertTrue(feedforward.getTrackingMaxError() < pid.getTrackingMaxError() / 4);
+    }
+
+    @Test
+    void recordedOutputReplaysTheRecording() throws IOException {
+        record();
+
+        MacroCANSparkMaxGroup replay = group(motor()).setRecordedOutputGain(1);
+        play(replay);
+
+        // Same motor, same output, same clock: the run is reproduced
+        assertEquals(0, replay.getTrackingRMS(), 1e-6);
+        assertEquals(0, replay.getTrackingMaxError(), 1e-6);
+    }
+}